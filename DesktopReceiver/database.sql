@@ -3,25 +3,45 @@ CREATE DATABASE IF NOT EXISTS ignite_comm_db;
 
 USE ignite_comm_db;
 
--- Create Table for Received Data
-CREATE TABLE IF NOT EXISTS received_data (
-                                             id INT AUTO_INCREMENT PRIMARY KEY,
-                                             data_content VARCHAR(500) NOT NULL,
-    sender_ip VARCHAR(50),
-    received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    status VARCHAR(20) DEFAULT 'RECEIVED'
-    );
+-- The desktop app owns the schema. On connect it applies the versioned
+-- scripts in src/main/resources/com/ignite/desktop/migrations in order and
+-- records them in schema_version, so every station ends up with the same
+-- table and indexes:
+--
+-- received_data (
+--     id INT AUTO_INCREMENT PRIMARY KEY,
+--     data_content TEXT NOT NULL,
+--     sender_ip VARCHAR(50),
+--     received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     status ENUM('RECEIVED', 'SAVED', 'ERROR', 'NOT_SAVED') NOT NULL DEFAULT 'RECEIVED',
+--     client_msg_id VARCHAR(64) NULL,
+--     UNIQUE KEY uk_client_msg_id (client_msg_id),
+--     INDEX idx_received_at (received_at),
+--     INDEX idx_sender_ip (sender_ip),
+--     INDEX idx_status_received_at (status, received_at),
+--     FULLTEXT INDEX ft_data_content (data_content)
+-- )
+--
+-- Do not create or alter the table by hand; a change belongs in a new
+-- migration script.
 
--- Create index for faster queries
-CREATE INDEX idx_received_at ON received_data(received_at);
+-- For reference, what DatabaseService.setPartitioning(DAILY) does on the next
+-- connect, after the migrations. Partitioned tables allow neither FULLTEXT indexes nor unique keys
+-- without received_at, so search falls back to LIKE and the app deduplicates
+-- client message ids itself. Old days are then removed with DROP PARTITION.
+-- ALTER TABLE received_data
+--     DROP INDEX ft_data_content,
+--     DROP INDEX uk_client_msg_id;
+-- ALTER TABLE received_data
+--     MODIFY received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (id, received_at),
+--     ADD INDEX idx_client_msg_id (client_msg_id);
+-- ALTER TABLE received_data PARTITION BY RANGE (UNIX_TIMESTAMP(received_at)) (
+--     PARTITION p0 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-17 00:00:00')),
+--     PARTITION p20261017 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-18 00:00:00')),
+--     PARTITION pmax VALUES LESS THAN MAXVALUE
+-- );
 
--- Insert sample data (optional)
-INSERT INTO received_data (data_content, sender_ip) VALUES
-                                                        ('Sample Data 1', '192.168.0.100'),
-                                                        ('Sample Data 2', '192.168.0.101');
-
--- Verify table creation
-DESCRIBE received_data;
-
--- Select all data
-SELECT * FROM received_data;
\ No newline at end of file
+-- After the app has connected once
+-- SELECT * FROM schema_version;
+-- DESCRIBE received_data;
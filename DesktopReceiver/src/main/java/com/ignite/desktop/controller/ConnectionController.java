@@ -2,13 +2,18 @@ package com.ignite.desktop.controller;
 
 import com.ignite.desktop.model.ReceivedData;
 import com.ignite.desktop.service.DatabaseService;
+import com.ignite.desktop.service.MessageSearchIndex;
+import com.ignite.desktop.service.MessageStatistics;
+import com.ignite.desktop.service.PersistenceService;
 import com.ignite.desktop.service.SocketServerService;
 import com.ignite.desktop.util.AlertHelper;
+import com.ignite.desktop.util.FxBatchDispatcher;
+import com.ignite.desktop.util.Log;
+import com.ignite.desktop.util.RingBufferObservableList;
 
 import javafx.animation.*;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.binding.BooleanBinding;
 import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -30,15 +35,49 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ConnectionController implements Initializable {
 
-    private static ObservableList<ReceivedData> sharedDataList = FXCollections.observableArrayList();
-    private static StringBuilder sharedLogBuffer = new StringBuilder();
+    // Newest-first rows kept in memory; anything older is only available from the database
+    private static final int MESSAGE_RETENTION = 1200;
+    private static final int PAGE_SIZE = 200;
+    private static RingBufferObservableList<ReceivedData> sharedDataList =
+            new RingBufferObservableList<>(MESSAGE_RETENTION);
+    // Activity log keeps the newest LOG_CAPACITY lines; older lines are evicted one by one
+    private static final int LOG_CAPACITY = 2000;
+    private static final RingBufferObservableList<String> sharedLog =
+            new RingBufferObservableList<>(LOG_CAPACITY);
     private static boolean isDatabaseConnected = false;
     private static boolean isServerRunning = false;
 
+    // All JDBC work triggered from the UI runs here, never on the FX thread
+    private static final ExecutorService dbExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ui-db-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Searches run here so typing never scans the list on the FX thread
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ui-search-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final MessageSearchIndex searchIndex = new MessageSearchIndex();
+    private static final int SEARCH_DEBOUNCE_MILLIS = 200;
+
+    // Windowed view over received_data; survives view switches like sharedDataList
+    private static MessagePageLoader pageLoader;
+
+    private static final int UI_BATCH_LIMIT = 2000;
+    private static final int PERSISTED_LOG_DETAIL_LIMIT = 10;
+
     // Track which view is active
     private ViewType currentView = ViewType.CONNECTION;
 
@@ -48,6 +87,7 @@ public class ConnectionController implements Initializable {
     }
 
     // Database Fields
+    @FXML private ComboBox<DatabaseService.StorageEngine> storageEngineBox;
     @FXML private TextField dbHostField;
     @FXML private TextField dbPortField;
     @FXML private TextField dbNameField;
@@ -57,6 +97,8 @@ public class ConnectionController implements Initializable {
     // Server Fields
     @FXML private TextField serverIpField;
     @FXML private TextField serverPortField;
+    @FXML private ComboBox<SocketServerService.IngestMode> ingestModeBox;
+    @FXML private ComboBox<SocketServerService.ExecutorStrategy> executorStrategyBox;
 
     // Buttons
     @FXML private Button connectDbBtn;
@@ -123,13 +165,24 @@ public class ConnectionController implements Initializable {
 
     // Search
     @FXML private TextField searchField;
+    @FXML private CheckBox historySearchToggle;
     private FilteredList<ReceivedData> filteredData;
 
     // Log Area
-    @FXML private TextArea liveLogArea;
+    @FXML private ListView<String> liveLogList;
 
     private DatabaseService databaseService;
     private SocketServerService socketServerService;
+    private PersistenceService persistenceService;
+    private MessageStatistics messageStatistics;
+
+    // Coalesce per-message notifications into one FX update per pulse
+    private final FxBatchDispatcher<ReceivedData> receivedDispatcher =
+            new FxBatchDispatcher<>(this::handleReceivedBatch, UI_BATCH_LIMIT);
+    private final FxBatchDispatcher<ReceivedData> persistedDispatcher =
+            new FxBatchDispatcher<>(this::handlePersistedBatch, UI_BATCH_LIMIT);
+    private final FxBatchDispatcher<String> logDispatcher =
+            new FxBatchDispatcher<>(this::appendLogBatch, UI_BATCH_LIMIT);
 
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss");
@@ -145,11 +198,31 @@ public class ConnectionController implements Initializable {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        System.out.println("🔄 ConnectionController initializing...");
+        Log.info("🔄 ConnectionController initializing...");
 
         // Initialize services (singleton)
         databaseService = DatabaseService.getInstance();
         socketServerService = SocketServerService.getInstance();
+        persistenceService = PersistenceService.getInstance();
+        messageStatistics = MessageStatistics.getInstance();
+        messageStatistics.track(sharedDataList);
+        searchIndex.track(sharedDataList);
+
+        if (pageLoader == null) {
+            pageLoader = new MessagePageLoader(sharedDataList, databaseService, dbExecutor);
+            // Leave one page of headroom so the loader trims before the ring evicts
+            pageLoader.setPageSize(PAGE_SIZE, 50, sharedDataList.getCapacity() - PAGE_SIZE);
+        }
+        pageLoader.setOnPageLoadedCallback(message -> {
+            updateRecordCount();
+            updateMessageStats();
+            addLogEntry(message);
+        });
+        pageLoader.setOnWindowChangedCallback(() -> {
+            if (isLocalFilterActive()) {
+                runSearch();
+            }
+        });
 
         // Detect current view type
         detectCurrentView();
@@ -163,8 +236,9 @@ public class ConnectionController implements Initializable {
 
         // Common setup
         setupSocketCallbacks();
+        setupDatabaseCallbacks();
 
-        System.out.println("✅ ConnectionController initialized for " + currentView + " view");
+        Log.info("✅ ConnectionController initialized for " + currentView + " view");
     }
 
     private void detectCurrentView() {
@@ -204,6 +278,37 @@ public class ConnectionController implements Initializable {
             serverIpField.setText("192.168.0.105");
         }
         serverPortField.setText("3005");
+
+        if (storageEngineBox != null) {
+            storageEngineBox.getItems().setAll(DatabaseService.StorageEngine.values());
+            storageEngineBox.setValue(databaseService.getStorageEngine());
+
+            // The embedded store needs no server or credentials
+            BooleanBinding embedded = storageEngineBox.valueProperty()
+                    .isEqualTo(DatabaseService.StorageEngine.EMBEDDED);
+            for (TextField field : List.of(dbHostField, dbPortField, dbNameField, dbUsernameField, dbPasswordField)) {
+                field.disableProperty().bind(embedded);
+            }
+        }
+
+        if (ingestModeBox != null) {
+            ingestModeBox.getItems().setAll(SocketServerService.IngestMode.values());
+            ingestModeBox.setValue(socketServerService.getIngestMode());
+        }
+
+        if (executorStrategyBox != null) {
+            executorStrategyBox.getItems().setAll(SocketServerService.ExecutorStrategy.values());
+            if (!SocketServerService.isVirtualThreadSupported()) {
+                executorStrategyBox.getItems().remove(SocketServerService.ExecutorStrategy.VIRTUAL);
+            }
+            executorStrategyBox.setValue(socketServerService.getExecutorStrategy());
+
+            // Executor strategy only applies to the blocking ingest mode
+            if (ingestModeBox != null) {
+                executorStrategyBox.disableProperty().bind(
+                        ingestModeBox.valueProperty().isEqualTo(SocketServerService.IngestMode.NIO));
+            }
+        }
     }
 
     private void displayLocalIp() {
@@ -265,7 +370,9 @@ public class ConnectionController implements Initializable {
         setupSearch();
         displayLocalIp();
         updateMessageViewStatus();
+        bindStatLabels();
         updateMessageStats();
+        updateRecordCount();
         restoreLogBuffer();
 
         if (isServerRunning) {
@@ -331,25 +438,18 @@ public class ConnectionController implements Initializable {
         }
     }
 
-    private void updateMessageStats() {
-        if (totalMessagesLabel != null) {
-            totalMessagesLabel.setText(String.valueOf(sharedDataList.size()));
-        }
-
+    // Saved/error counts are maintained by MessageStatistics and bound once here
+    private void bindStatLabels() {
         if (savedCountLabel != null) {
-            long savedCount = sharedDataList.stream()
-                    .filter(d -> "SAVED".equals(d.getStatus()))
-                    .count();
-            savedCountLabel.setText(String.valueOf(savedCount));
+            savedCountLabel.textProperty().bind(messageStatistics.savedCountProperty().asString());
         }
 
         if (errorCountLabel != null) {
-            long errorCount = sharedDataList.stream()
-                    .filter(d -> "ERROR".equals(d.getStatus()) || "NOT_SAVED".equals(d.getStatus()))
-                    .count();
-            errorCountLabel.setText(String.valueOf(errorCount));
+            errorCountLabel.textProperty().bind(messageStatistics.errorCountProperty().asString());
         }
+    }
 
+    private void updateMessageStats() {
         if (tableRecordCountLabel != null) {
             tableRecordCountLabel.setText("Showing " + sharedDataList.size() + " records");
         }
@@ -436,6 +536,9 @@ public class ConnectionController implements Initializable {
         filteredData = new FilteredList<>(sharedDataList, p -> true);
         dataTable.setItems(filteredData);
 
+        // Fetch further pages as the user scrolls
+        pageLoader.attach(dataTable);
+
         // Row selection listener for delete button
         dataTable.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (deleteBtn != null) {
@@ -447,28 +550,70 @@ public class ConnectionController implements Initializable {
     private void setupSearch() {
         if (searchField == null || filteredData == null) return;
 
+        // Wait for a pause in typing, then query the index in the background
+        PauseTransition debounce = new PauseTransition(Duration.millis(SEARCH_DEBOUNCE_MILLIS));
+        debounce.setOnFinished(e -> runSearch());
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredData.setPredicate(data -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
+            if (newValue == null || newValue.isEmpty()) {
+                debounce.stop();
+                runSearch();
+            } else {
+                debounce.playFromStart();
+            }
+        });
 
-                String lowerCaseFilter = newValue.toLowerCase();
-
-                if (data.getDataContent() != null &&
-                        data.getDataContent().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (data.getSenderIp() != null &&
-                        data.getSenderIp().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                } else if (data.getStatus() != null &&
-                        data.getStatus().toLowerCase().contains(lowerCaseFilter)) {
-                    return true;
-                }
-                return false;
-            });
+        // The search box starts empty, so drop a history search left over from the last visit
+        if (pageLoader.isSearching()) {
+            pageLoader.setSearchQuery(null);
+            pageLoader.loadFirstPage();
+        }
+
+        if (historySearchToggle != null) {
+            historySearchToggle.selectedProperty().addListener((obs, oldVal, newVal) -> runSearch());
+        }
+    }
+
+    private boolean isHistorySearch() {
+        return historySearchToggle != null && historySearchToggle.isSelected();
+    }
 
+    // In-memory filtering over the loaded window; history search filters in the database instead
+    private boolean isLocalFilterActive() {
+        return isSearchActive() && !isHistorySearch();
+    }
+
+    private boolean isSearchActive() {
+        return searchField != null && searchField.getText() != null && !searchField.getText().isEmpty();
+    }
+
+    private void runSearch() {
+        if (filteredData == null) return;
+
+        String historyQuery = isHistorySearch() && isSearchActive() ? searchField.getText() : null;
+        if (historyQuery != null || pageLoader.isSearching()) {
+            // Reload the window from the database, with or without the query
+            filteredData.setPredicate(p -> true);
+            pageLoader.setSearchQuery(historyQuery);
+            pageLoader.loadFirstPage();
+            if (historyQuery != null) return;
+        }
+
+        if (!isSearchActive() || isHistorySearch()) {
+            filteredData.setPredicate(p -> true);
             updateTableRecordCount();
+            return;
+        }
+
+        String query = searchField.getText();
+        searchExecutor.execute(() -> {
+            Set<ReceivedData> matches = searchIndex.search(query);
+
+            Platform.runLater(() -> {
+                // Drop results for a query the user has already changed
+                if (!query.equals(searchField.getText())) return;
+                filteredData.setPredicate(matches::contains);
+                updateTableRecordCount();
+            });
         });
     }
 
@@ -490,13 +635,10 @@ public class ConnectionController implements Initializable {
     }
 
     private void setupSocketCallbacks() {
-        System.out.println("📌 Setting up socket callbacks...");
+        Log.info("📌 Setting up socket callbacks...");
 
-        // Data received callback
-        socketServerService.setOnDataReceivedCallback(data -> {
-            System.out.println("📥 Callback received data: " + data.getDataContent());
-            handleReceivedData(data);
-        });
+        // Data received callback, called on network threads and coalesced per pulse
+        socketServerService.setOnDataReceivedCallback(receivedDispatcher::submit);
 
         // Status change callback
         socketServerService.setOnStatusChangeCallback(status -> {
@@ -513,7 +655,28 @@ public class ConnectionController implements Initializable {
             });
         });
 
-        System.out.println("✅ Socket callbacks registered");
+        // Persistence results arrive on the writer thread
+        persistenceService.setOnPersistedCallback(persistedDispatcher::submit);
+
+        Log.info("✅ Socket callbacks registered");
+    }
+
+    private void setupDatabaseCallbacks() {
+        // Health changes come from the monitor thread
+        databaseService.setOnHealthChangeCallback(healthy -> {
+            Platform.runLater(() -> {
+                if (!isDatabaseConnected) return;
+
+                if (healthy) {
+                    setDatabaseStatus(ConnectionStatus.CONNECTED);
+                    addLogEntry("✅ Database link restored");
+                    updateRecordCount();
+                } else {
+                    setDatabaseStatus(ConnectionStatus.CONNECTING);
+                    addLogEntry("⚠️ Database link lost - reconnecting...");
+                }
+            });
+        });
     }
 
     private enum ConnectionStatus {
@@ -747,51 +910,107 @@ public class ConnectionController implements Initializable {
         flash.play();
     }
 
-    private void handleReceivedData(ReceivedData data) {
-        Platform.runLater(() -> {
-            try {
-                System.out.println("🔄 Processing data in UI: " + data.getDataContent());
+    // Runs once per pulse with every row that arrived since the previous one
+    private void handleReceivedBatch(List<ReceivedData> batch) {
+        try {
+            animateDataReceived();
+            for (int i = 0; i < batch.size(); i++) {
+                messageStatistics.recordArrival();
+            }
 
-                animateDataReceived();
+            // Add to shared data list (newest first); persistence happens in the background.
+            // When the user has scrolled back into history the rows stay in the database only.
+            boolean shown = pageLoader.addLive(batch);
 
-                // Save to database if connected
-                if (databaseService.isConnected()) {
-                    System.out.println("💾 Saving to database...");
-                    boolean saved = databaseService.saveReceivedData(data);
+            // Update UI elements
+            updateLastReceived(batch.get(batch.size() - 1));
+            updateMessageStats();
 
-                    if (saved) {
-                        data.setStatus("SAVED");
-                        addLogEntry("✅ Saved: " + truncateText(data.getDataContent(), 40) +
-                                " from " + data.getSenderIp());
-                    } else {
-                        data.setStatus("ERROR");
-                        addLogEntry("⚠️ Failed to save: " + truncateText(data.getDataContent(), 40));
-                    }
-                } else {
-                    data.setStatus("NOT_SAVED");
-                    addLogEntry("⚠️ DB not connected - " + truncateText(data.getDataContent(), 40));
-                }
+            // New rows are only shown under an active filter once the index has seen them
+            if (shown && isLocalFilterActive()) {
+                runSearch();
+            }
 
-                // Add to shared data list (newest first)
-                sharedDataList.add(0, data);
+            // Scroll to top if table is visible
+            if (dataTable != null && shown) {
+                dataTable.scrollTo(0);
+            }
 
-                // Update UI elements
-                updateRecordCount();
-                updateLastReceived(data);
-                updateMessageStats();
+        } catch (Exception e) {
+            Log.error("❌ Error processing data: " + e.getMessage(), e);
+            addLogEntry("❌ Error: " + e.getMessage());
+        }
+    }
 
-                // Scroll to top if table is visible
-                if (dataTable != null) {
-                    dataTable.scrollTo(0);
-                    dataTable.refresh();
-                }
+    private void handlePersistedBatch(List<ReceivedData> batch) {
+        int saved = 0;
+        int notSaved = 0;
+        int failed = 0;
+
+        for (ReceivedData data : batch) {
+            messageStatistics.recordStatusChange(data);
+            searchIndex.updateStatus(data);
+
+            switch (data.getStatus()) {
+                case "SAVED":
+                    saved++;
+                    break;
+                case "NOT_SAVED":
+                    notSaved++;
+                    break;
+                default:
+                    failed++;
+                    break;
+            }
 
-            } catch (Exception e) {
-                System.err.println("❌ Error processing data: " + e.getMessage());
-                e.printStackTrace();
-                addLogEntry("❌ Error: " + e.getMessage());
+            if (batch.size() <= PERSISTED_LOG_DETAIL_LIMIT) {
+                logPersisted(data);
             }
-        });
+        }
+
+        // Large batches get one summary line instead of one line per row
+        if (batch.size() > PERSISTED_LOG_DETAIL_LIMIT) {
+            if (saved > 0) addLogEntry("✅ Saved " + saved + " messages");
+            if (notSaved > 0) addLogEntry("⚠️ DB not connected - " + notSaved + " messages not saved");
+            if (failed > 0) addLogEntry("⚠️ Failed to save " + failed + " messages");
+        }
+
+        updateRecordCount();
+        updateMessageStats();
+        updatePersistenceInfo();
+
+        if (isLocalFilterActive()) {
+            runSearch();
+        }
+
+        if (dataTable != null) {
+            dataTable.refresh();
+        }
+    }
+
+    private void logPersisted(ReceivedData data) {
+        switch (data.getStatus()) {
+            case "SAVED":
+                addLogEntry("✅ Saved: " + truncateText(data.getDataContent(), 40) +
+                        " from " + data.getSenderIp());
+                break;
+            case "NOT_SAVED":
+                addLogEntry("⚠️ DB not connected - " + truncateText(data.getDataContent(), 40));
+                break;
+            default:
+                addLogEntry("⚠️ Failed to save: " + truncateText(data.getDataContent(), 40));
+                break;
+        }
+    }
+
+    private void updatePersistenceInfo() {
+        if (connectionInfoLabel != null) {
+            connectionInfoLabel.setText(String.format("%.1f msg/s • Write queue: %d • Last write: %.1f ms • Avg: %.1f ms",
+                    messageStatistics.getMessagesPerSecond(10),
+                    persistenceService.getQueueDepth(),
+                    persistenceService.getLastWriteLatencyMillis(),
+                    persistenceService.getAverageWriteLatencyMillis()));
+        }
     }
 
     private String truncateText(String text, int maxLength) {
@@ -819,7 +1038,7 @@ public class ConnectionController implements Initializable {
             // Build the correct path for your package structure
             String fxmlPath = "/com/ignite/desktop/views/" + fxmlFileName;
 
-            System.out.println("🔍 Loading FXML from: " + fxmlPath);
+            Log.info("🔍 Loading FXML from: " + fxmlPath);
 
             // Load FXML
             URL fxmlUrl = getClass().getResource(fxmlPath);
@@ -829,7 +1048,7 @@ public class ConnectionController implements Initializable {
                         "\nMake sure the file exists at: resources/com/ignite/desktop/views/" + fxmlFileName);
             }
 
-            System.out.println("✅ FXML found at: " + fxmlUrl);
+            Log.info("✅ FXML found at: " + fxmlUrl);
 
             FXMLLoader loader = new FXMLLoader(fxmlUrl);
             Parent root = loader.load();
@@ -844,11 +1063,10 @@ public class ConnectionController implements Initializable {
             stage.setScene(scene);
             stage.show();
 
-            System.out.println("✅ Successfully navigated to: " + fxmlFileName);
+            Log.info("✅ Successfully navigated to: " + fxmlFileName);
 
         } catch (IOException e) {
-            System.err.println("❌ Navigation Error: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Navigation Error: " + e.getMessage(), e);
 
             AlertHelper.showError("Navigation Error",
                     "Could not load view: " + fxmlFileName + "\n\n" +
@@ -859,8 +1077,7 @@ public class ConnectionController implements Initializable {
                             "2. File name matches exactly\n" +
                             "3. Project has been rebuilt");
         } catch (Exception e) {
-            System.err.println("❌ Unexpected navigation error: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Unexpected navigation error: " + e.getMessage(), e);
             AlertHelper.showError("Navigation Error",
                     "Unexpected error: " + e.getMessage());
         }
@@ -870,16 +1087,16 @@ public class ConnectionController implements Initializable {
         // Correct path for your CSS file
         String cssPath = "/com/ignite/desktop/styles/modern-style.css";
 
-        System.out.println("🎨 Loading CSS from: " + cssPath);
+        Log.info("🎨 Loading CSS from: " + cssPath);
 
         URL cssUrl = getClass().getResource(cssPath);
 
         if (cssUrl != null) {
             scene.getStylesheets().add(cssUrl.toExternalForm());
-            System.out.println("✅ CSS loaded successfully from: " + cssUrl);
+            Log.info("✅ CSS loaded successfully from: " + cssUrl);
         } else {
-            System.err.println("⚠️ CSS file not found at: " + cssPath);
-            System.err.println("⚠️ Expected location: resources/com/ignite/desktop/styles/modern-style.css");
+            Log.warn("⚠️ CSS file not found at: " + cssPath);
+            Log.warn("⚠️ Expected location: resources/com/ignite/desktop/styles/modern-style.css");
 
             // Try to continue without CSS
             AlertHelper.showWarning("CSS Not Found",
@@ -918,8 +1135,11 @@ public class ConnectionController implements Initializable {
             String database = dbNameField.getText().trim();
             String username = dbUsernameField.getText().trim();
             String password = dbPasswordField.getText();
+            DatabaseService.StorageEngine engine = storageEngineBox != null && storageEngineBox.getValue() != null
+                    ? storageEngineBox.getValue() : DatabaseService.StorageEngine.MYSQL;
 
-            if (host.isEmpty() || port.isEmpty() || database.isEmpty()) {
+            if (engine == DatabaseService.StorageEngine.MYSQL
+                    && (host.isEmpty() || port.isEmpty() || database.isEmpty())) {
                 AlertHelper.showWarning("Validation Error",
                         "Please fill in all required database fields.");
                 return;
@@ -927,6 +1147,11 @@ public class ConnectionController implements Initializable {
 
             setDatabaseStatus(ConnectionStatus.CONNECTING);
 
+            if (engine != databaseService.getStorageEngine()) {
+                // The other store holds different messages
+                socketServerService.forgetRecentMessageIds();
+            }
+            databaseService.setStorageEngine(engine);
             databaseService.setConnectionParams(host, port, database, username, password);
 
             new Thread(() -> {
@@ -937,7 +1162,7 @@ public class ConnectionController implements Initializable {
                         if (success) {
                             isDatabaseConnected = true;
                             setDatabaseStatus(ConnectionStatus.CONNECTED);
-                            addLogEntry("✅ Database connected to " + database + "@" + host);
+                            addLogEntry("✅ Database connected to " + databaseService.describeStore());
                             AlertHelper.showSuccess("Database Connected",
                                     "Successfully connected to database!");
                             loadExistingData();
@@ -966,7 +1191,7 @@ public class ConnectionController implements Initializable {
     }
 
     private void disconnectDatabase() {
-        databaseService.disconnect();
+        dbExecutor.execute(databaseService::disconnect);
         isDatabaseConnected = false;
         setDatabaseStatus(ConnectionStatus.DISCONNECTED);
         addLogEntry("🔌 Database disconnected");
@@ -1009,6 +1234,12 @@ public class ConnectionController implements Initializable {
             setServerStatus(ConnectionStatus.STARTING);
 
             socketServerService.setConnectionParams(ip, port);
+            if (ingestModeBox != null && ingestModeBox.getValue() != null) {
+                socketServerService.setIngestMode(ingestModeBox.getValue());
+            }
+            if (executorStrategyBox != null && executorStrategyBox.getValue() != null) {
+                socketServerService.setExecutorStrategy(executorStrategyBox.getValue());
+            }
 
             new Thread(() -> {
                 try {
@@ -1083,23 +1314,28 @@ public class ConnectionController implements Initializable {
         if (confirmed) {
             int count = sharedDataList.size();
 
-            if (databaseService.isConnected()) {
-                databaseService.clearAllData();
-            }
+            dbExecutor.execute(() -> {
+                if (databaseService.isConnected()) {
+                    databaseService.clearAllData();
+                }
+                socketServerService.forgetRecentMessageIds();
 
-            sharedDataList.clear();
-            updateRecordCount();
-            updateMessageStats();
+                Platform.runLater(() -> {
+                    sharedDataList.clear();
+                    updateRecordCount();
+                    updateMessageStats();
 
-            if (lastReceivedLabel != null) {
-                lastReceivedLabel.setText("--:--");
-            }
-            if (lastActivityLabel != null) {
-                lastActivityLabel.setText("--:--");
-            }
+                    if (lastReceivedLabel != null) {
+                        lastReceivedLabel.setText("--:--");
+                    }
+                    if (lastActivityLabel != null) {
+                        lastActivityLabel.setText("--:--");
+                    }
 
-            addLogEntry("🗑️ All data cleared (" + count + " records removed)");
-            AlertHelper.showSuccess("Data Cleared", "All data has been successfully cleared.");
+                    addLogEntry("🗑️ All data cleared (" + count + " records removed)");
+                    AlertHelper.showSuccess("Data Cleared", "All data has been successfully cleared.");
+                });
+            });
         }
     }
 
@@ -1120,43 +1356,43 @@ public class ConnectionController implements Initializable {
                         "Data: " + truncateText(selected.getDataContent(), 50));
 
         if (confirmed) {
-            boolean success = true;
+            dbExecutor.execute(() -> {
+                boolean success = true;
 
-            if (databaseService.isConnected()) {
-                success = databaseService.deleteData(selected.getId());
-            }
+                if (databaseService.isConnected()) {
+                    success = databaseService.deleteData(selected.getId());
+                }
 
-            if (success) {
-                sharedDataList.remove(selected);
-                updateRecordCount();
-                updateMessageStats();
-                addLogEntry("🗑️ Deleted record ID: " + selected.getId());
-                AlertHelper.showSuccess("Record Deleted", "Record has been successfully deleted.");
-            } else {
-                AlertHelper.showError("Delete Failed", "Failed to delete the record from database.");
-            }
+                final boolean deleted = success;
+                Platform.runLater(() -> {
+                    if (deleted) {
+                        sharedDataList.remove(selected);
+                        updateRecordCount();
+                        updateMessageStats();
+                        addLogEntry("🗑️ Deleted record ID: " + selected.getId());
+                        AlertHelper.showSuccess("Record Deleted", "Record has been successfully deleted.");
+                    } else {
+                        AlertHelper.showError("Delete Failed", "Failed to delete the record from database.");
+                    }
+                });
+            });
         }
     }
 
     @FXML
     private void handleClearLog() {
-        if (liveLogArea != null) {
-            liveLogArea.clear();
-            sharedLogBuffer.setLength(0);
+        if (liveLogList != null) {
+            sharedLog.clear();
             addLogEntry("📋 Log cleared");
         }
     }
 
     private void loadExistingData() {
-        if (databaseService.isConnected()) {
-            sharedDataList.clear();
-            sharedDataList.addAll(databaseService.getAllReceivedData());
-            updateRecordCount();
-            updateMessageStats();
-            addLogEntry("📂 Loaded " + sharedDataList.size() + " existing records from database");
-        }
+        // Only the newest page is loaded; older rows are fetched on scroll
+        pageLoader.loadFirstPage();
     }
 
+    // Both counts are in memory, so this runs on the FX thread after every batch
     private void updateRecordCount() {
         int count = databaseService.isConnected() ?
                 databaseService.getRecordCount() : sharedDataList.size();
@@ -1183,30 +1419,33 @@ public class ConnectionController implements Initializable {
 
     private void addLogEntry(String message) {
         String timestamp = LocalDateTime.now().format(timeFormatter);
-        String logEntry = "[" + timestamp + "] " + message + "\n";
+        String logEntry = "[" + timestamp + "] " + message;
 
-        // Store in shared buffer
-        sharedLogBuffer.append(logEntry);
+        // Lines reach the shared log in one batch per pulse, from any thread
+        logDispatcher.submit(logEntry);
 
-        Platform.runLater(() -> {
-            if (liveLogArea != null) {
-                liveLogArea.appendText(logEntry);
-                liveLogArea.setScrollTop(Double.MAX_VALUE);
-            }
-        });
+        Log.info(message);
+    }
 
-        System.out.println(logEntry.trim());
+    private void appendLogBatch(List<String> entries) {
+        sharedLog.addAll(entries);
+        if (liveLogList != null) {
+            liveLogList.scrollTo(sharedLog.size() - 1);
+        }
     }
 
+    // The ListView shares the ring directly and only builds cells for visible lines
     private void restoreLogBuffer() {
-        if (liveLogArea != null && sharedLogBuffer.length() > 0) {
-            liveLogArea.setText(sharedLogBuffer.toString());
-            liveLogArea.setScrollTop(Double.MAX_VALUE);
+        if (liveLogList != null) {
+            liveLogList.setItems(sharedLog);
+            if (!sharedLog.isEmpty()) {
+                liveLogList.scrollTo(sharedLog.size() - 1);
+            }
         }
     }
 
     public void cleanup() {
-        System.out.println("🧹 Cleaning up ConnectionController...");
+        Log.info("🧹 Cleaning up ConnectionController...");
 
         stopPulseAnimation(dbPulseAnimation);
         stopPulseAnimation(serverPulseAnimation);
@@ -1219,12 +1458,10 @@ public class ConnectionController implements Initializable {
             databaseService.disconnect();
         }
 
-        System.out.println("✅ ConnectionController cleanup complete");
+        Log.info("✅ ConnectionController cleanup complete");
     }
     
     private void debugResourceLocations() {
-        System.out.println("\n========== Resource Location Debug ==========");
-
         String[][] resources = {
                 {"Connection View", "/com/ignite/desktop/views/connection-view.fxml"},
                 {"Message View", "/com/ignite/desktop/views/message-view.fxml"},
@@ -1237,16 +1474,10 @@ public class ConnectionController implements Initializable {
             URL url = getClass().getResource(path);
 
             if (url != null) {
-                System.out.println("✅ " + name + ": FOUND");
-                System.out.println("   Path: " + path);
-                System.out.println("   URL: " + url);
+                Log.debug(() -> "✅ " + name + ": FOUND at " + url);
             } else {
-                System.out.println("❌ " + name + ": NOT FOUND");
-                System.out.println("   Expected: " + path);
+                Log.warn("❌ " + name + ": NOT FOUND, expected at " + path);
             }
-            System.out.println();
         }
-
-        System.out.println("=============================================\n");
     }
 }
\ No newline at end of file
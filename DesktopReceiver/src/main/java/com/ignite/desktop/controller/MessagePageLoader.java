@@ -0,0 +1,290 @@
+package com.ignite.desktop.controller;
+
+import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.service.DatabaseService;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// Keeps only a sliding window of received_data in the table's backing list.
+// Pages are fetched by keyset as the user scrolls towards either edge, and
+// rows scrolled far out of view are dropped again.
+// All list mutations happen on the FX thread; queries run on the given executor.
+public class MessagePageLoader {
+
+    private final ObservableList<ReceivedData> items;
+    private final DatabaseService databaseService;
+    private final Executor executor;
+
+    private int pageSize = 200;
+    private int prefetchMargin = 50;
+    private int maxWindowSize = 1000;
+
+    private boolean loading = false;
+    private boolean olderExhausted = false;
+    private boolean newerExhausted = true;
+    private boolean atHead = true;
+    private int missedLiveCount = 0;
+
+    // When set, every page comes from the full-history search instead of the plain table
+    private String searchQuery;
+    // Bumped by loadFirstPage so results of a superseded load are dropped
+    private int generation = 0;
+
+    private TableView<ReceivedData> table;
+    private VirtualFlow<?> flow;
+
+    private Consumer<String> onPageLoadedCallback;
+    private Runnable onWindowChangedCallback;
+
+    public MessagePageLoader(ObservableList<ReceivedData> items,
+                             DatabaseService databaseService, Executor executor) {
+        this.items = items;
+        this.databaseService = databaseService;
+        this.executor = executor;
+    }
+
+    public void setPageSize(int pageSize, int prefetchMargin, int maxWindowSize) {
+        this.pageSize = Math.max(1, pageSize);
+        this.prefetchMargin = Math.max(0, prefetchMargin);
+        this.maxWindowSize = Math.max(this.pageSize * 2, maxWindowSize);
+    }
+
+    public void setOnPageLoadedCallback(Consumer<String> callback) {
+        this.onPageLoadedCallback = callback;
+    }
+
+    // Fired whenever a page replaced or extended the window
+    public void setOnWindowChangedCallback(Runnable callback) {
+        this.onWindowChangedCallback = callback;
+    }
+
+    // True while the window starts at the newest row, i.e. live arrivals belong on top.
+    public boolean isAtHead() {
+        return atHead;
+    }
+
+    public int getMissedLiveCount() {
+        return missedLiveCount;
+    }
+
+    // Null or empty returns to the unfiltered table. Takes effect on the next loadFirstPage().
+    public void setSearchQuery(String query) {
+        this.searchQuery = query == null || query.isBlank() ? null : query;
+    }
+
+    public boolean isSearching() {
+        return searchQuery != null;
+    }
+
+    public void attach(TableView<ReceivedData> table) {
+        this.table = table;
+        this.flow = null;
+
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> hookFlow());
+        hookFlow();
+    }
+
+    private void hookFlow() {
+        if (table == null || table.getSkin() == null || flow != null) return;
+
+        if (table.lookup(".virtual-flow") instanceof VirtualFlow<?> virtualFlow) {
+            flow = virtualFlow;
+            flow.positionProperty().addListener((obs, oldVal, newVal) -> onScrolled());
+        }
+    }
+
+    public void loadFirstPage() {
+        int loadGeneration = ++generation;
+        String query = searchQuery;
+        loading = true;
+
+        executor.execute(() -> {
+            if (!databaseService.isConnected()) {
+                Platform.runLater(() -> {
+                    if (loadGeneration == generation) loading = false;
+                });
+                return;
+            }
+
+            List<ReceivedData> page = query == null
+                    ? databaseService.getOlderPage(null, 0, pageSize)
+                    : databaseService.searchOlderPage(query, null, 0, pageSize);
+            int matchCount = query == null ? -1 : databaseService.estimateSearchCount(query);
+
+            Platform.runLater(() -> {
+                if (loadGeneration != generation) return;
+
+                items.setAll(page);
+                // Live rows are not filtered, so a search result window never counts as the head
+                atHead = query == null;
+                newerExhausted = true;
+                olderExhausted = page.size() < pageSize;
+                missedLiveCount = 0;
+                loading = false;
+
+                if (query == null) {
+                    notifyLoaded("📂 Loaded " + page.size() + " most recent records from database");
+                } else {
+                    notifyLoaded("🔎 " + formatMatchCount(matchCount) + " records match \"" + query + "\"");
+                }
+                notifyWindowChanged();
+            });
+        });
+    }
+
+    private static String formatMatchCount(int count) {
+        if (count < 0) return "Unknown number of";
+        return count > DatabaseService.SEARCH_COUNT_CAP ? DatabaseService.SEARCH_COUNT_CAP + "+" : String.valueOf(count);
+    }
+
+    // Live arrivals from the socket server, oldest first. Returns false when the
+    // window is scrolled away from the head; the rows are still reachable through the database.
+    public boolean addLive(List<ReceivedData> batch) {
+        if (!atHead) {
+            missedLiveCount += batch.size();
+            return false;
+        }
+
+        // One insert for the whole batch, newest on top
+        List<ReceivedData> newestFirst = new ArrayList<>(batch);
+        Collections.reverse(newestFirst);
+        items.addAll(0, newestFirst);
+
+        if (items.size() > maxWindowSize) {
+            items.remove(maxWindowSize, items.size());
+            olderExhausted = false;
+        }
+        return true;
+    }
+
+    private void onScrolled() {
+        if (loading || flow == null || items.isEmpty()) return;
+
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        IndexedCell<?> last = flow.getLastVisibleCell();
+        if (first == null || last == null) return;
+
+        int rowCount = table.getItems().size();
+
+        if (!olderExhausted && last.getIndex() >= rowCount - 1 - prefetchMargin) {
+            loadOlder();
+        } else if (!atHead && !newerExhausted && first.getIndex() <= prefetchMargin) {
+            loadNewer();
+        }
+    }
+
+    private void loadOlder() {
+        ReceivedData oldest = items.get(items.size() - 1);
+        int loadGeneration = generation;
+        String query = searchQuery;
+        loading = true;
+
+        executor.execute(() -> {
+            List<ReceivedData> page = query == null
+                    ? databaseService.getOlderPage(oldest.getReceivedAt(), oldest.getId(), pageSize)
+                    : databaseService.searchOlderPage(query, oldest.getReceivedAt(), oldest.getId(), pageSize);
+
+            Platform.runLater(() -> {
+                if (loadGeneration != generation) return;
+                loading = false;
+                if (page.size() < pageSize) {
+                    olderExhausted = true;
+                }
+                if (page.isEmpty()) return;
+
+                int firstVisible = firstVisibleIndex();
+                items.addAll(page);
+
+                // Drop the newest rows that are now far above the viewport
+                int overflow = items.size() - maxWindowSize;
+                if (overflow > 0) {
+                    items.remove(0, overflow);
+                    atHead = false;
+                    newerExhausted = false;
+                    table.scrollTo(Math.max(0, firstVisible - overflow));
+                }
+                notifyWindowChanged();
+            });
+        });
+    }
+
+    private void loadNewer() {
+        ReceivedData newest = firstPersisted();
+        if (newest == null) {
+            loadFirstPage();
+            return;
+        }
+        int loadGeneration = generation;
+        String query = searchQuery;
+        loading = true;
+
+        executor.execute(() -> {
+            List<ReceivedData> page = query == null
+                    ? databaseService.getNewerPage(newest.getReceivedAt(), newest.getId(), pageSize)
+                    : databaseService.searchNewerPage(query, newest.getReceivedAt(), newest.getId(), pageSize);
+
+            Platform.runLater(() -> {
+                if (loadGeneration != generation) return;
+                loading = false;
+                if (page.size() < pageSize) {
+                    newerExhausted = true;
+                    // The top of a search result is still not the live head
+                    if (query == null) {
+                        atHead = true;
+                        missedLiveCount = 0;
+                    }
+                }
+                if (page.isEmpty()) return;
+
+                int firstVisible = firstVisibleIndex();
+                items.addAll(0, page);
+                table.scrollTo(firstVisible + page.size());
+
+                // Drop the oldest rows that are now far below the viewport
+                int overflow = items.size() - maxWindowSize;
+                if (overflow > 0) {
+                    items.remove(items.size() - overflow, items.size());
+                    olderExhausted = false;
+                }
+                notifyWindowChanged();
+            });
+        });
+    }
+
+    // Rows that are not saved yet have no id and cannot anchor a keyset cursor
+    private ReceivedData firstPersisted() {
+        for (ReceivedData data : items) {
+            if (data.getId() > 0 && data.getReceivedAt() != null) {
+                return data;
+            }
+        }
+        return null;
+    }
+
+    private int firstVisibleIndex() {
+        if (flow == null) return 0;
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        return first != null ? first.getIndex() : 0;
+    }
+
+    private void notifyWindowChanged() {
+        if (onWindowChangedCallback != null) {
+            onWindowChangedCallback.run();
+        }
+    }
+
+    private void notifyLoaded(String message) {
+        if (onPageLoadedCallback != null) {
+            onPageLoadedCallback.accept(message);
+        }
+    }
+}
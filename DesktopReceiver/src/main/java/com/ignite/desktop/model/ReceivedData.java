@@ -9,7 +9,9 @@ public class ReceivedData {
     private String dataContent;
     private String senderIp;
     private LocalDateTime receivedAt;
-    private String status;
+    private volatile String status;
+    // Optional id chosen by the sender; resends of one message carry the same id
+    private String clientMsgId;
 
     // Constructors
     public ReceivedData() {}
@@ -62,6 +64,14 @@ public class ReceivedData {
         this.status = status;
     }
 
+    public String getClientMsgId() {
+        return clientMsgId;
+    }
+
+    public void setClientMsgId(String clientMsgId) {
+        this.clientMsgId = clientMsgId;
+    }
+
     public String getFormattedDateTime() {
         if (receivedAt != null) {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
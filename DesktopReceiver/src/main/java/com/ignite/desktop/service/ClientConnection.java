@@ -0,0 +1,119 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One connected client, regardless of ingest mode. Subclasses only know how
+// to put bytes on the wire; decoding, reply encoding and the v2
+// acknowledgement state live here.
+//
+// v2 acknowledgements are cumulative: "ACK2 n" confirms every sequence number
+// up to n that was not rejected with "NAK2 s" or "BUSY2 s". A NAK is final;
+// BUSY means the server was overloaded or without its database and the
+// message should be sent again later. Persistence completes in enqueue
+// order, so the highest persisted sequence is always the right ACK. Acks are
+// flushed on a shared executor, which lets one write cover a whole batch.
+abstract class ClientConnection implements FrameCodec.Sink {
+
+    interface MessageHandler {
+        // sequence is -1 for v1 messages; clientMsgId is null unless the client sent one
+        void onMessage(ClientConnection connection, long sequence, String clientMsgId, String text);
+    }
+
+    final String clientIp;
+
+    private final Executor ackExecutor;
+    private final MessageHandler messageHandler;
+    private final FrameCodec.Decoder decoder = new FrameCodec.Decoder();
+
+    private final AtomicLong highestPersisted = new AtomicLong(-1);
+    private final AtomicBoolean ackScheduled = new AtomicBoolean(false);
+    private long lastAckSent = -1;
+
+    // Admission state, used only by the connection's reader (see IngestAdmission)
+    TokenBucket rateLimiter;
+    boolean readPaused;
+
+    ClientConnection(String clientIp, Executor ackExecutor, MessageHandler messageHandler) {
+        this.clientIp = clientIp;
+        this.ackExecutor = ackExecutor;
+        this.messageHandler = messageHandler;
+    }
+
+    // Safe to call from any thread.
+    abstract void sendBytes(byte[] bytes);
+
+    // Feeds received bytes through the decoder; false means close the connection.
+    boolean receive(ByteBuffer in) {
+        return decoder.feed(in, this);
+    }
+
+    boolean isBinary() {
+        return decoder.isBinary();
+    }
+
+    @Override
+    public void onMessage(long sequence, String clientMsgId, String text) {
+        messageHandler.onMessage(this, sequence, clientMsgId, text);
+    }
+
+    @Override
+    public void onPing() {
+        sendBytes(isBinary()
+                ? FrameCodec.encode(FrameCodec.TYPE_PONG, null)
+                : FrameCodec.encodeLine(FrameCodec.V2_PONG));
+    }
+
+    @Override
+    public void onMalformed(String reason) {
+        Log.warn("Malformed input from " + clientIp + ": " + reason);
+        if (isBinary()) {
+            sendBytes(FrameCodec.encode(FrameCodec.TYPE_ERROR, reason));
+        } else {
+            sendBytes(FrameCodec.encodeLine(FrameCodec.V2_ERROR_REPLY));
+        }
+    }
+
+    void sendReply(String reply) {
+        sendBytes(isBinary()
+                ? FrameCodec.encode(FrameCodec.TYPE_REPLY, reply)
+                : FrameCodec.encodeLine(reply));
+    }
+
+    void onPersisted(long sequence, boolean saved) {
+        if (!saved) {
+            sendBytes(isBinary()
+                    ? FrameCodec.encode(FrameCodec.TYPE_NAK, sequence, null)
+                    : FrameCodec.encodeLine(FrameCodec.V2_NAK_PREFIX + sequence));
+            return;
+        }
+
+        highestPersisted.accumulateAndGet(sequence, Math::max);
+        if (ackScheduled.compareAndSet(false, true)) {
+            ackExecutor.execute(this::flushAck);
+        }
+    }
+
+    void onBusy(long sequence) {
+        sendBytes(isBinary()
+                ? FrameCodec.encode(FrameCodec.TYPE_BUSY, sequence, null)
+                : FrameCodec.encodeLine(FrameCodec.V2_BUSY_PREFIX + sequence));
+    }
+
+    private void flushAck() {
+        ackScheduled.set(false);
+
+        long upTo = highestPersisted.get();
+        synchronized (this) {
+            if (upTo <= lastAckSent) return;
+            lastAckSent = upTo;
+        }
+        sendBytes(isBinary()
+                ? FrameCodec.encode(FrameCodec.TYPE_ACK, upTo, null)
+                : FrameCodec.encodeLine(FrameCodec.V2_ACK_PREFIX + upTo));
+    }
+}
@@ -0,0 +1,199 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Keeps a cached health flag for the database link so callers never pay a
+// round trip to ask "are we connected?". A background heartbeat refreshes the
+// flag, and a lost link is re-established with exponential backoff.
+public class ConnectionHealthMonitor {
+
+    private final Callable<Boolean> probe;
+    private final Callable<Boolean> reconnector;
+
+    private long ttlMillis = 5_000;
+    private long heartbeatIntervalMillis = 10_000;
+    private long initialBackoffMillis = 1_000;
+    private long maxBackoffMillis = 30_000;
+
+    private volatile boolean healthy = false;
+    private volatile long lastCheckedAt = 0;
+    private volatile long currentBackoffMillis;
+    private volatile int reconnectAttempts = 0;
+
+    private final AtomicBoolean checkInFlight = new AtomicBoolean(false);
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean(false);
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> heartbeat;
+
+    private volatile Consumer<Boolean> onHealthChangeCallback;
+
+    public ConnectionHealthMonitor(Callable<Boolean> probe, Callable<Boolean> reconnector) {
+        this.probe = probe;
+        this.reconnector = reconnector;
+        this.currentBackoffMillis = initialBackoffMillis;
+    }
+
+    public void setTimings(long ttlMillis, long heartbeatIntervalMillis,
+                           long initialBackoffMillis, long maxBackoffMillis) {
+        this.ttlMillis = ttlMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public void setOnHealthChangeCallback(Consumer<Boolean> callback) {
+        this.onHealthChangeCallback = callback;
+    }
+
+    public synchronized void start() {
+        stop();
+
+        healthy = true;
+        lastCheckedAt = System.currentTimeMillis();
+        currentBackoffMillis = initialBackoffMillis;
+        reconnectAttempts = 0;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = scheduler.scheduleWithFixedDelay(this::heartbeat,
+                heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        reconnectScheduled.set(false);
+        healthy = false;
+    }
+
+    // Never blocks. A stale answer triggers a refresh in the background.
+    public boolean isHealthy() {
+        if (healthy && System.currentTimeMillis() - lastCheckedAt > ttlMillis) {
+            requestCheck();
+        }
+        return healthy;
+    }
+
+    // Called by the data layer when a statement fails with a connection error.
+    public void reportFailure() {
+        if (healthy) {
+            markUnhealthy();
+        }
+    }
+
+    public long getLastCheckedAt() {
+        return lastCheckedAt;
+    }
+
+    public int getReconnectAttempts() {
+        return reconnectAttempts;
+    }
+
+    private void requestCheck() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null || !checkInFlight.compareAndSet(false, true)) return;
+
+        try {
+            current.execute(() -> {
+                try {
+                    check();
+                } finally {
+                    checkInFlight.set(false);
+                }
+            });
+        } catch (Exception e) {
+            checkInFlight.set(false);
+        }
+    }
+
+    private void heartbeat() {
+        if (healthy) {
+            check();
+        }
+    }
+
+    private void check() {
+        boolean ok;
+        try {
+            ok = Boolean.TRUE.equals(probe.call());
+        } catch (Exception e) {
+            ok = false;
+        }
+        lastCheckedAt = System.currentTimeMillis();
+
+        if (!ok && healthy) {
+            markUnhealthy();
+        }
+    }
+
+    private void markUnhealthy() {
+        healthy = false;
+        Log.warn("⚠️ Database link lost, reconnecting...");
+        notifyHealthChange(false);
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null || !reconnectScheduled.compareAndSet(false, true)) return;
+
+        try {
+            current.schedule(this::attemptReconnect, currentBackoffMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            reconnectScheduled.set(false);
+        }
+    }
+
+    private void attemptReconnect() {
+        reconnectScheduled.set(false);
+        reconnectAttempts++;
+
+        boolean ok;
+        try {
+            ok = Boolean.TRUE.equals(reconnector.call());
+        } catch (Exception e) {
+            ok = false;
+        }
+
+        if (ok) {
+            healthy = true;
+            lastCheckedAt = System.currentTimeMillis();
+            currentBackoffMillis = initialBackoffMillis;
+            Log.info("✅ Database link restored after " + reconnectAttempts + " attempt(s)");
+            reconnectAttempts = 0;
+            notifyHealthChange(true);
+        } else {
+            currentBackoffMillis = Math.min(currentBackoffMillis * 2, maxBackoffMillis);
+            scheduleReconnect();
+        }
+    }
+
+    private void notifyHealthChange(boolean isHealthy) {
+        Consumer<Boolean> callback = onHealthChangeCallback;
+        if (callback != null) {
+            try {
+                callback.accept(isHealthy);
+            } catch (Exception e) {
+                Log.error("❌ Health callback error: " + e.getMessage());
+            }
+        }
+    }
+}
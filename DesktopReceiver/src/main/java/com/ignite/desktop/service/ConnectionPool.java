@@ -0,0 +1,306 @@
+package com.ignite.desktop.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Small JDBC connection pool. Borrowed connections are proxies whose close()
+// hands the physical connection back to the pool, so callers keep using
+// try-with-resources exactly as with DriverManager connections.
+public class ConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long EVICTION_INTERVAL_MILLIS = 30_000;
+    // Connections returned this recently are handed out without a validation round trip
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+
+    // LIFO so the most recently used (warmest) connection is handed out first
+    private final LinkedBlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    private static final class IdleConnection {
+        final Connection connection;
+        final long idleSince;
+
+        IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) throws SQLException {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(this.maxSize, true);
+
+        // Fail fast on bad credentials/host instead of on first borrow
+        try {
+            for (int i = 0; i < Math.max(1, this.minSize); i++) {
+                idleConnections.offerFirst(new IdleConnection(createConnection()));
+            }
+        } catch (SQLException e) {
+            IdleConnection idle;
+            while ((idle = idleConnections.pollFirst()) != null) {
+                discard(idle.connection);
+            }
+            throw e;
+        }
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle,
+                EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                        " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = createConnection();
+            }
+            activeCount.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection takeValidIdle() {
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            if (System.currentTimeMillis() - idle.idleSince < VALIDATION_BYPASS_MILLIS
+                    || isUsable(idle.connection)) {
+                return idle.connection;
+            }
+            validationFailures.incrementAndGet();
+            discard(idle.connection);
+        }
+        return null;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection createConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        totalCount.incrementAndGet();
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    private void release(Connection physical) {
+        activeCount.decrementAndGet();
+        try {
+            if (closed || physical.isClosed()) {
+                discard(physical);
+                return;
+            }
+            // Leave no half-finished transaction behind for the next borrower
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idleConnections.offerFirst(new IdleConnection(physical));
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection physical) {
+        totalCount.decrementAndGet();
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        Iterator<IdleConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && totalCount.get() > minSize) {
+            IdleConnection idle = iterator.next();
+            if (now - idle.idleSince >= idleTimeoutMillis && idleConnections.removeLastOccurrence(idle)) {
+                evictedCount.incrementAndGet();
+                discard(idle.connection);
+            }
+        }
+
+        // Keep the warm minimum topped up
+        while (!closed && totalCount.get() < minSize) {
+            try {
+                idleConnections.offerLast(new IdleConnection(createConnection()));
+            } catch (SQLException e) {
+                break;
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new InvocationHandler() {
+                    private boolean returned = false;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!returned) {
+                                    returned = true;
+                                    release(physical);
+                                }
+                                return null;
+                            case "isClosed":
+                                return returned || physical.isClosed();
+                            case "unwrap":
+                            case "isWrapperFor":
+                                break;
+                            default:
+                                if (returned) {
+                                    throw new SQLException("Connection already returned to pool");
+                                }
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            discard(idle.connection);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public String getStats() {
+        return String.format("Pool: %d active, %d idle, %d/%d open, %d waiting%n" +
+                        "Borrows: %d, wait avg %.2f ms, max %.2f ms, timeouts %d%n" +
+                        "Created: %d, evicted: %d, failed validation: %d%n",
+                getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getWaitingThreads(),
+                borrowCount.get(), getAverageWaitMillis(), getMaxWaitMillis(), timeoutCount.get(),
+                createdCount.get(), evictedCount.get(), validationFailures.get());
+    }
+}
@@ -1,23 +1,38 @@
 package com.ignite.desktop.service;
 
 import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
 
-import java.sql.*;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+// Entry point for everything that reads or writes received messages. The
+// actual storage is a MessageStore: the MySQL table, or the embedded segment
+// log for stations that run without a database server.
 public class DatabaseService {
 
+    public enum StorageEngine { MYSQL, EMBEDDED }
+
+    // How the MySQL table is split by received_at
+    public enum PartitionScheme { NONE, DAILY, MONTHLY }
+
     private static DatabaseService instance;
-    private Connection connection;
 
-    private String host = "localhost";
-    private String port = "3306";
-    private String database = "ignite_comm_db";
-    private String username = "root";
-    private String password = "1234";
+    private final MySqlMessageStore mySqlStore = new MySqlMessageStore();
+    private final EmbeddedMessageStore embeddedStore = new EmbeddedMessageStore(
+            new File(System.getProperty("user.home"), ".ignite-desktop" + File.separator + "messages"));
 
-    private volatile boolean isConnected = false;
+    // Applied on the next connect()
+    private volatile StorageEngine storageEngine = StorageEngine.MYSQL;
+    private volatile MessageStore store;
+
+    // Search result counts stop here; beyond it the UI shows "10000+"
+    public static final int SEARCH_COUNT_CAP = 10_000;
 
     private DatabaseService() {}
 
@@ -30,209 +45,183 @@ public class DatabaseService {
 
     public void setConnectionParams(String host, String port,
                                     String database, String username, String password) {
-        this.host = host;
-        this.port = port;
-        this.database = database;
-        this.username = username;
-        this.password = password;
+        mySqlStore.setConnectionParams(host, port, database, username, password);
     }
 
-    public boolean connect() throws SQLException {
-        try {
-            // Load MySQL driver explicitly
-            Class.forName("com.mysql.cj.jdbc.Driver");
-
-            String url = String.format(
-                    "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
-                    host, port, database
-            );
+    public void setPoolParams(int minSize, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis) {
+        mySqlStore.setPoolParams(minSize, maxSize, idleTimeoutMillis, borrowTimeoutMillis);
+    }
 
-            System.out.println("🔄 Connecting to database: " + url);
-            connection = DriverManager.getConnection(url, username, password);
-            isConnected = true;
+    // MySQL only, applied on the next connect(). Switching an unpartitioned
+    // table to DAILY or MONTHLY rebuilds it once and drops its FULLTEXT index.
+    public void setPartitioning(PartitionScheme scheme) {
+        mySqlStore.setPartitioning(scheme);
+    }
 
-            System.out.println("✅ Database connected successfully!");
+    // MySQL only, applied on the next connect(). Rows older than retentionDays
+    // are exported to archiveDirectory as gzip'd CSV and then removed; 0 keeps
+    // everything and a null directory removes without exporting.
+    public void setRetention(int retentionDays, File archiveDirectory) {
+        mySqlStore.setRetention(retentionDays, archiveDirectory);
+    }
 
-            // Verify table exists
-            ensureTableExists();
+    public void setStorageEngine(StorageEngine storageEngine) {
+        this.storageEngine = storageEngine;
+    }
 
-            return true;
+    public StorageEngine getStorageEngine() {
+        return storageEngine;
+    }
 
-        } catch (ClassNotFoundException e) {
-            System.err.println("❌ MySQL Driver not found: " + e.getMessage());
-            throw new SQLException("MySQL Driver not found", e);
-        } catch (SQLException e) {
-            isConnected = false;
-            System.err.println("❌ Database connection failed: " + e.getMessage());
-            throw e;
-        }
+    public void setEmbeddedDirectory(File directory) {
+        embeddedStore.setDirectory(directory);
     }
 
-    private void ensureTableExists() {
-        String createTableSQL = """
-            CREATE TABLE IF NOT EXISTS received_data (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                data_content TEXT NOT NULL,
-                sender_ip VARCHAR(50),
-                received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                status VARCHAR(20) DEFAULT 'RECEIVED'
-            )
-        """;
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createTableSQL);
-            System.out.println("✅ Table 'received_data' verified/created");
-        } catch (SQLException e) {
-            System.err.println("⚠️ Could not verify/create table: " + e.getMessage());
-        }
+    public File getEmbeddedDirectory() {
+        return embeddedStore.getDirectory();
     }
 
-    public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                isConnected = false;
-                System.out.println("🔌 Database disconnected.");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    // Only the MySQL store changes health on its own; the embedded one is up
+    // from connect() to disconnect()
+    public void setOnHealthChangeCallback(Consumer<Boolean> callback) {
+        mySqlStore.setOnHealthChangeCallback(callback);
     }
 
-    public boolean isConnected() {
-        try {
-            boolean connected = connection != null && !connection.isClosed() && isConnected;
-            if (connected) {
-                // Additional check - try a simple query
-                try (Statement stmt = connection.createStatement()) {
-                    stmt.execute("SELECT 1");
-                }
-            }
-            return connected;
-        } catch (SQLException e) {
-            isConnected = false;
-            return false;
-        }
+    public ConnectionHealthMonitor getHealthMonitor() {
+        return mySqlStore.getHealthMonitor();
     }
 
-    public synchronized boolean saveReceivedData(ReceivedData data) {
-        if (!isConnected()) {
-            System.err.println("❌ Cannot save - database not connected!");
-            return false;
+    public synchronized boolean connect() throws SQLException, IOException {
+        MessageStore next = storageEngine == StorageEngine.EMBEDDED ? embeddedStore : mySqlStore;
+        MessageStore previous = store;
+        if (previous != null && previous != next) {
+            previous.close();
         }
 
-        String sql = "INSERT INTO received_data (data_content, sender_ip, status) VALUES (?, ?, ?)";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql,
-                Statement.RETURN_GENERATED_KEYS)) {
+        store = next;
+        next.open();
+        return true;
+    }
 
-            stmt.setString(1, data.getDataContent());
-            stmt.setString(2, data.getSenderIp());
-            stmt.setString(3, data.getStatus() != null ? data.getStatus() : "RECEIVED");
+    public synchronized void disconnect() {
+        MessageStore current = store;
+        if (current != null) {
+            current.close();
+        }
+    }
 
-            System.out.println("💾 Executing INSERT: " + data.getDataContent());
+    // Cheap and non-blocking
+    public boolean isConnected() {
+        MessageStore current = store;
+        return current != null && current.isAvailable();
+    }
 
-            int affectedRows = stmt.executeUpdate();
+    // Where the data goes, for the log, e.g. "ignite_comm_db@localhost"
+    public String describeStore() {
+        MessageStore current = store;
+        return current != null ? current.describe() : "not connected";
+    }
 
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        data.setId(generatedKeys.getInt(1));
-                    }
-                }
-                System.out.println("✅ Data saved to database with ID: " + data.getId());
-                return true;
-            } else {
-                System.err.println("❌ No rows affected");
-            }
+    public String getPoolStats() {
+        MessageStore current = store;
+        return current != null ? current.getStats() : "Pool: not connected\n";
+    }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Error saving data: " + e.getMessage());
-            e.printStackTrace();
+    public boolean saveReceivedData(ReceivedData data) {
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) {
+            Log.warn("❌ Cannot save - database not connected!");
+            return false;
         }
-        return false;
+        return current.saveReceivedData(data);
     }
 
-    public List<ReceivedData> getAllReceivedData() {
-        List<ReceivedData> dataList = new ArrayList<>();
+    public boolean saveAll(List<ReceivedData> dataList) {
+        if (dataList.isEmpty()) return true;
 
-        if (!isConnected()) {
-            System.err.println("❌ Cannot fetch - database not connected!");
-            return dataList;
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) {
+            Log.warn("❌ Cannot save batch - database not connected!");
+            return false;
         }
+        return current.saveAll(dataList);
+    }
 
-        String sql = "SELECT * FROM received_data ORDER BY received_at DESC";
+    // True once everything saved so far survives a crash
+    public boolean flush() {
+        MessageStore current = store;
+        return current != null && current.isAvailable() && current.flush();
+    }
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    public List<ReceivedData> getAllReceivedData() {
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) {
+            Log.error("❌ Cannot fetch - database not connected!");
+            return new ArrayList<>();
+        }
 
-            while (rs.next()) {
-                ReceivedData data = new ReceivedData();
-                data.setId(rs.getInt("id"));
-                data.setDataContent(rs.getString("data_content"));
-                data.setSenderIp(rs.getString("sender_ip"));
+        List<ReceivedData> dataList = current.getAllReceivedData();
+        Log.info("📂 Fetched " + dataList.size() + " records");
+        return dataList;
+    }
 
-                Timestamp timestamp = rs.getTimestamp("received_at");
-                if (timestamp != null) {
-                    data.setReceivedAt(timestamp.toLocalDateTime());
-                }
+    // Keyset paging, newest first. Pass a null receivedAt for the first page,
+    // otherwise the (receivedAt, id) of the last row already shown.
+    public List<ReceivedData> getOlderPage(LocalDateTime receivedAt, int id, int limit) {
+        MessageStore current = availableStore();
+        return current != null ? current.getOlderPage(receivedAt, id, limit) : new ArrayList<>();
+    }
 
-                data.setStatus(rs.getString("status"));
-                dataList.add(data);
-            }
+    // Rows newer than (receivedAt, id), returned newest first like getOlderPage.
+    public List<ReceivedData> getNewerPage(LocalDateTime receivedAt, int id, int limit) {
+        MessageStore current = availableStore();
+        return current != null ? current.getNewerPage(receivedAt, id, limit) : new ArrayList<>();
+    }
 
-            System.out.println("📂 Fetched " + dataList.size() + " records");
+    // Full-history search, paged by the same (received_at, id) keyset as getOlderPage.
+    // Words match the message text, IP-like tokens match sender_ip by prefix
+    // and status names match status exactly; all tokens must match.
+    public List<ReceivedData> searchOlderPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        MessageStore current = availableStore();
+        return current != null ? current.searchOlderPage(query, receivedAt, id, limit) : new ArrayList<>();
+    }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Error fetching data: " + e.getMessage());
-            e.printStackTrace();
-        }
+    public List<ReceivedData> searchNewerPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        MessageStore current = availableStore();
+        return current != null ? current.searchNewerPage(query, receivedAt, id, limit) : new ArrayList<>();
+    }
 
-        return dataList;
+    // Number of matches, counted no further than SEARCH_COUNT_CAP + 1 so a
+    // broad query stays cheap. Returns -1 when the count could not be taken.
+    public int estimateSearchCount(String query) {
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) return -1;
+        return current.estimateSearchCount(query);
     }
 
     public boolean deleteData(int id) {
-        if (!isConnected()) return false;
-
-        String sql = "DELETE FROM received_data WHERE id = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        MessageStore current = store;
+        return current != null && current.isAvailable() && current.deleteData(id);
     }
 
     public boolean clearAllData() {
-        if (!isConnected()) return false;
-
-        String sql = "DELETE FROM received_data";
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        MessageStore current = store;
+        return current != null && current.isAvailable() && current.clearAllData();
     }
 
+    // Cached by the store, so this never queries the table
     public int getRecordCount() {
-        if (!isConnected()) return 0;
-
-        String sql = "SELECT COUNT(*) as count FROM received_data";
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) return 0;
+        return current.getRecordCount();
+    }
 
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    private MessageStore availableStore() {
+        MessageStore current = store;
+        if (current == null || !current.isAvailable()) {
+            Log.error("❌ Cannot fetch - database not connected!");
+            return null;
         }
-        return 0;
+        return current;
     }
-}
\ No newline at end of file
+}
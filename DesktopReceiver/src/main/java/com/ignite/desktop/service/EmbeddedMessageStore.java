@@ -0,0 +1,951 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Messages kept in a directory of append-only segment files, for stations
+// without a MySQL server. Writes only ever append, so ingest runs at disk
+// speed; the log is forced to disk every SYNC_INTERVAL_MILLIS rather than per
+// write, so a power cut can lose the last second (a crashed process cannot).
+//
+// Every record is [type: 1 byte][length: 4 bytes][CRC32 of payload: 4 bytes][payload].
+// Rows, deletes and id bookkeeping are all records. Only the metadata of live
+// rows is held in memory, ordered by (receivedAt, id) for paging; the text is
+// read back from disk when a row is returned or searched. On open the log is
+// replayed to rebuild that index, and a torn record at the tail is cut off.
+// Once half of the sealed segments is dead weight, the live rows are copied
+// into fresh segments and the old files are deleted. The copy runs without the
+// lock, so saves and reads carry on; only the final swap takes it.
+final class EmbeddedMessageStore implements MessageStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOCK_FILE = "store.lock";
+
+    private static final long MAX_SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final long SYNC_INTERVAL_MILLIS = 1_000;
+    private static final double COMPACT_DEAD_RATIO = 0.5;
+
+    private static final byte RECORD_PUT = 'P';
+    private static final byte RECORD_DELETE = 'D';
+    // Written first in every segment: the next id at the time, so ids are not
+    // reused after the rows holding the highest ones were compacted away
+    private static final byte RECORD_NEXT_ID = 'N';
+    // Everything before it is gone; also carries the next id
+    private static final byte RECORD_CLEAR = 'C';
+
+    private static final int RECORD_HEADER_SIZE = 9;
+    // Far above the 64 KB frame limit; anything larger is a corrupt length
+    private static final int MAX_PAYLOAD_SIZE = 4 * 1024 * 1024;
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.receivedAt)
+            .thenComparingInt(entry -> entry.id);
+
+    private volatile File directory;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by lock
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private final NavigableSet<Entry> byTime = new TreeSet<>(ORDER);
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private final Map<String, Entry> byClientMsgId = new HashMap<>();
+    private int nextId = 1;
+    // byId.size(), readable without the lock so count labels never wait on compaction
+    private volatile int recordCount = 0;
+
+    private RandomAccessFile lockFile;
+    private FileLock directoryLock;
+    private ScheduledExecutorService maintenance;
+    private volatile boolean open = false;
+    private volatile boolean dirty = false;
+
+    private long syncCount = 0;
+    private long compactionCount = 0;
+    // Bumped by clear and close; a compaction that sees it change is thrown away
+    private int generation = 0;
+
+    EmbeddedMessageStore(File directory) {
+        this.directory = directory;
+    }
+
+    // Applied on the next open()
+    void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (open) return;
+
+            File dir = directory;
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+
+            lockFile = new RandomAccessFile(new File(dir, LOCK_FILE), "rw");
+            directoryLock = lockFile.getChannel().tryLock();
+            if (directoryLock == null) {
+                closeLockFile();
+                throw new IOException(dir + " is in use by another receiver");
+            }
+
+            try {
+                nextId = 1;
+                replay(dir);
+                if (active == null) {
+                    rollSegment();
+                }
+            } catch (IOException e) {
+                closeSegments();
+                closeLockFile();
+                throw e;
+            }
+
+            maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "embedded-store-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            maintenance.scheduleWithFixedDelay(this::maintain,
+                    SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+            open = true;
+            Log.info("✅ Embedded store opened at " + dir + " (" + byId.size() + " rows, "
+                    + segments.size() + " segments)");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService scheduler;
+        lock.writeLock().lock();
+        try {
+            if (!open) return;
+            open = false;
+            generation++;
+            scheduler = maintenance;
+            maintenance = null;
+
+            sync();
+            closeSegments();
+            closeLockFile();
+            byTime.clear();
+            byId.clear();
+            recordCount = 0;
+            byClientMsgId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduler.shutdownNow();
+        Log.info("🔌 Embedded store closed.");
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return open;
+    }
+
+    @Override
+    public String describe() {
+        return "embedded store at " + directory;
+    }
+
+    @Override
+    public boolean saveReceivedData(ReceivedData data) {
+        return saveAll(List.of(data));
+    }
+
+    // Saves are synced once a second; this does it now
+    @Override
+    public boolean flush() {
+        lock.writeLock().lock();
+        try {
+            return open && sync();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One append for the whole batch; on a failed write the segment is cut
+    // back so none of the batch is kept
+    @Override
+    public boolean saveAll(List<ReceivedData> dataList) {
+        if (dataList.isEmpty()) return true;
+
+        lock.writeLock().lock();
+        try {
+            if (!open) return false;
+            if (active.size >= MAX_SEGMENT_BYTES) {
+                rollSegment();
+            }
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(dataList.size() * 128);
+            List<Entry> added = new ArrayList<>(dataList.size());
+            Map<String, Entry> batchIds = new HashMap<>();
+            int[] assignedIds = new int[dataList.size()];
+            int id = nextId;
+
+            for (int i = 0; i < dataList.size(); i++) {
+                ReceivedData data = dataList.get(i);
+                String clientMsgId = data.getClientMsgId();
+                if (clientMsgId != null) {
+                    Entry existing = byClientMsgId.get(clientMsgId);
+                    if (existing == null) existing = batchIds.get(clientMsgId);
+                    if (existing != null) {
+                        assignedIds[i] = existing.id;
+                        continue;
+                    }
+                }
+
+                LocalDateTime receivedAt = data.getReceivedAt() != null
+                        ? data.getReceivedAt().truncatedTo(ChronoUnit.MILLIS)
+                        : LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+                String status = data.getStatus() != null ? data.getStatus() : "RECEIVED";
+
+                long offset = active.size + batch.size();
+                byte[] record = encodeRecord(RECORD_PUT, encodePut(id, receivedAt, status,
+                        data.getSenderIp(), clientMsgId, data.getDataContent()));
+                batch.write(record, 0, record.length);
+
+                Entry entry = new Entry(id, receivedAt, status, data.getSenderIp(), clientMsgId,
+                        active, offset, record.length);
+                added.add(entry);
+                if (clientMsgId != null) {
+                    batchIds.put(clientMsgId, entry);
+                }
+                assignedIds[i] = id++;
+            }
+
+            if (!added.isEmpty()) {
+                append(batch.toByteArray());
+                nextId = id;
+                for (Entry entry : added) {
+                    index(entry);
+                }
+            }
+
+            for (int i = 0; i < dataList.size(); i++) {
+                dataList.get(i).setId(assignedIds[i]);
+            }
+            Log.debug(() -> "✅ Batch of " + dataList.size() + " rows appended to the embedded store");
+            return true;
+
+        } catch (IOException e) {
+            Log.error("❌ Error appending to the embedded store: " + e.getMessage());
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ReceivedData> getAllReceivedData() {
+        lock.readLock().lock();
+        try {
+            return load(byTime.descendingSet(), null, Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ReceivedData> getOlderPage(LocalDateTime receivedAt, int id, int limit) {
+        return searchOlderPage(null, receivedAt, id, limit);
+    }
+
+    @Override
+    public List<ReceivedData> getNewerPage(LocalDateTime receivedAt, int id, int limit) {
+        return searchNewerPage(null, receivedAt, id, limit);
+    }
+
+    @Override
+    public List<ReceivedData> searchOlderPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        SearchQuery parsed = query != null ? SearchQuery.parse(query) : null;
+
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> older = receivedAt == null
+                    ? byTime.descendingSet()
+                    : byTime.headSet(Entry.probe(receivedAt, id), false).descendingSet();
+            return load(older, parsed, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ReceivedData> searchNewerPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        SearchQuery parsed = query != null ? SearchQuery.parse(query) : null;
+
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> newerSet = receivedAt == null
+                    ? byTime
+                    : byTime.tailSet(Entry.probe(receivedAt, id), false);
+            List<ReceivedData> newer = load(newerSet, parsed, limit);
+            Collections.reverse(newer);
+            return newer;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int estimateSearchCount(String query) {
+        SearchQuery parsed = SearchQuery.parse(query);
+
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Entry entry : byTime) {
+                if (matches(entry, parsed) && ++count > DatabaseService.SEARCH_COUNT_CAP) break;
+            }
+            return count;
+        } catch (IOException e) {
+            Log.error("❌ Error counting search results: " + e.getMessage());
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteData(int id) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = byId.get(id);
+            if (!open || entry == null) return false;
+
+            byte[] record = encodeRecord(RECORD_DELETE, ByteBuffer.allocate(Integer.BYTES).putInt(id).array());
+            append(record);
+            active.deadBytes += record.length;
+            unindex(entry);
+            return true;
+        } catch (IOException e) {
+            Log.error("❌ Error deleting from the embedded store: " + e.getMessage());
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Starts a new segment with a clear record, then drops the older files.
+    // A crash in between leaves files the clear record already overrides.
+    @Override
+    public boolean clearAllData() {
+        lock.writeLock().lock();
+        try {
+            if (!open) return false;
+
+            List<Segment> previous = new ArrayList<>(segments.values());
+            generation++;
+            rollSegment(RECORD_CLEAR);
+            sync();
+            for (Segment segment : previous) {
+                deleteSegment(segment);
+            }
+            byTime.clear();
+            byId.clear();
+            recordCount = 0;
+            byClientMsgId.clear();
+            return true;
+        } catch (IOException e) {
+            Log.error("❌ Error clearing the embedded store: " + e.getMessage());
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public String getStats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            long dead = 0;
+            for (Segment segment : segments.values()) {
+                bytes += segment.size;
+                dead += segment.deadBytes;
+            }
+            StringBuilder stats = new StringBuilder();
+            stats.append("Store: embedded at ").append(directory).append("\n");
+            stats.append("Segments: ").append(segments.size())
+                    .append(String.format(" (%.1f MB, %.0f%% dead)", bytes / (1024.0 * 1024.0),
+                            bytes > 0 ? dead * 100.0 / bytes : 0.0)).append("\n");
+            stats.append("Rows: ").append(byId.size())
+                    .append(", Syncs: ").append(syncCount)
+                    .append(", Compactions: ").append(compactionCount).append("\n");
+            return stats.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs on the maintenance thread
+    private void maintain() {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (!open) return;
+            sync();
+            compact = shouldCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!compact) return;
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            Log.error("❌ Embedded store compaction failed: " + e.getMessage());
+        }
+    }
+
+    private boolean sync() {
+        if (!dirty || active == null) return true;
+        try {
+            active.channel.force(false);
+            dirty = false;
+            syncCount++;
+            return true;
+        } catch (IOException e) {
+            Log.error("❌ Could not sync the embedded store: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean shouldCompact() {
+        long sealedBytes = 0;
+        long sealedDead = 0;
+        for (Segment segment : segments.values()) {
+            if (segment == active) continue;
+            sealedBytes += segment.size;
+            sealedDead += segment.deadBytes;
+        }
+        return sealedBytes > 0 && sealedDead >= sealedBytes * COMPACT_DEAD_RATIO;
+    }
+
+    // Copies every live row into new segments and deletes all older ones, in
+    // three steps:
+    //  1. Under the lock: snapshot the live rows, seal the active segment and
+    //     reserve segment numbers for the copies. The new active segment is
+    //     numbered after that range, so a delete written during the copy is
+    //     replayed after the copy it removes.
+    //  2. Without the lock: copy the records and force them to disk.
+    //  3. Under the lock: point the index at the copies, skipping rows deleted
+    //     meanwhile, and delete the old files.
+    // A crash before step 3 finishes leaves two copies of some rows, and replay
+    // keeps the later one.
+    private void compact() throws IOException {
+        List<Entry> live;
+        Set<Segment> sealed;
+        long firstNumber;
+        long endNumber;
+        int startGeneration;
+
+        lock.writeLock().lock();
+        try {
+            if (!open) return;
+            live = new ArrayList<>(byTime);
+            sealed = new HashSet<>(segments.values());
+
+            long liveBytes = 0;
+            for (Entry entry : live) {
+                liveBytes += entry.length;
+            }
+            firstNumber = segments.lastKey() + 1;
+            // Each copy segment may overshoot by one record, hence the spare
+            endNumber = firstNumber + liveBytes / MAX_SEGMENT_BYTES + 2;
+            rollSegment(RECORD_NEXT_ID, endNumber);
+            startGeneration = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Segment> copies = new ArrayList<>();
+        List<Entry> moved = new ArrayList<>(live.size());
+        try {
+            Segment target = null;
+            for (Entry entry : live) {
+                byte[] record = readRecord(entry);
+                if (target == null || target.size + record.length > MAX_SEGMENT_BYTES) {
+                    long number = firstNumber + copies.size();
+                    if (number >= endNumber) {
+                        throw new IOException("Compaction ran out of reserved segments");
+                    }
+                    target = openSegment(new File(directory, segmentName(number)), number);
+                    copies.add(target);
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    target.channel.write(buffer, target.size + buffer.position());
+                }
+                moved.add(new Entry(entry.id, entry.receivedAt, entry.status, entry.senderIp, entry.clientMsgId,
+                        target, target.size, record.length));
+                target.size += record.length;
+            }
+            for (Segment copy : copies) {
+                copy.channel.force(false);
+            }
+        } catch (IOException e) {
+            // Includes channels closed under us by clear() or close()
+            discard(copies);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!open || generation != startGeneration) {
+                discard(copies);
+                return;
+            }
+
+            int kept = 0;
+            for (int i = 0; i < live.size(); i++) {
+                Entry original = live.get(i);
+                Entry copy = moved.get(i);
+                if (byId.get(original.id) == original) {
+                    unindex(original);
+                    index(copy);
+                    kept++;
+                } else {
+                    copy.segment.deadBytes += copy.length;
+                }
+            }
+            for (Segment copy : copies) {
+                segments.put(copy.number, copy);
+            }
+
+            // Deletes made during the copy must be on disk before the originals go
+            sync();
+            for (Segment segment : sealed) {
+                deleteSegment(segment);
+            }
+            compactionCount++;
+            Log.info("🧹 Compacted " + sealed.size() + " embedded store segments (" + kept + " rows kept)");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void discard(List<Segment> copies) {
+        for (Segment copy : copies) {
+            closeQuietly(copy.channel);
+            if (!copy.file.delete()) {
+                Log.warn("⚠️ Could not delete " + copy.file);
+            }
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        Segment segment = active;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer, segment.size + buffer.position());
+            }
+        } catch (IOException e) {
+            // Leave no partial record behind for the next append to follow
+            segment.channel.truncate(segment.size);
+            throw e;
+        }
+        segment.size += bytes.length;
+        dirty = true;
+    }
+
+    private void rollSegment() throws IOException {
+        rollSegment(RECORD_NEXT_ID);
+    }
+
+    private void rollSegment(byte firstRecord) throws IOException {
+        rollSegment(firstRecord, segments.isEmpty() ? 1 : segments.lastKey() + 1);
+    }
+
+    private void rollSegment(byte firstRecord, long number) throws IOException {
+        // Only the active segment is ever synced, so the old one must be clean
+        if (!sync()) {
+            throw new IOException("Could not sync segment " + active.number);
+        }
+        Segment segment = openSegment(new File(directory, segmentName(number)), number);
+        segments.put(number, segment);
+        active = segment;
+
+        byte[] record = encodeRecord(firstRecord, ByteBuffer.allocate(Integer.BYTES).putInt(nextId).array());
+        append(record);
+        segment.deadBytes += record.length;
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.number);
+        closeQuietly(segment.channel);
+        if (!segment.file.delete()) {
+            Log.warn("⚠️ Could not delete " + segment.file);
+        }
+    }
+
+    private void index(Entry entry) {
+        byTime.add(entry);
+        byId.put(entry.id, entry);
+        recordCount = byId.size();
+        if (entry.clientMsgId != null) {
+            byClientMsgId.put(entry.clientMsgId, entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        byTime.remove(entry);
+        byId.remove(entry.id);
+        recordCount = byId.size();
+        if (entry.clientMsgId != null) {
+            byClientMsgId.remove(entry.clientMsgId);
+        }
+        entry.segment.deadBytes += entry.length;
+    }
+
+    // Reads rows in the iteration order of `entries` until `limit` match; the
+    // query is checked on the indexed columns first so most misses cost no read
+    private List<ReceivedData> load(Iterable<Entry> entries, SearchQuery query, int limit) {
+        List<ReceivedData> rows = new ArrayList<>(Math.min(limit, 256));
+        try {
+            Iterator<Entry> iterator = entries.iterator();
+            while (rows.size() < limit && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (query != null && !query.matchesColumns(entry.status, entry.senderIp)) continue;
+
+                ReceivedData data = toReceivedData(entry, readRecord(entry));
+                if (query == null || query.matchesText(data.getDataContent())) {
+                    rows.add(data);
+                }
+            }
+        } catch (IOException e) {
+            Log.error("❌ Error reading from the embedded store: " + e.getMessage());
+        }
+        return rows;
+    }
+
+    private boolean matches(Entry entry, SearchQuery query) throws IOException {
+        if (!query.matchesColumns(entry.status, entry.senderIp)) return false;
+        if (query.words.isEmpty()) return true;
+        return query.matchesText(toReceivedData(entry, readRecord(entry)).getDataContent());
+    }
+
+    private byte[] readRecord(Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        while (buffer.hasRemaining()) {
+            if (entry.segment.channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                throw new EOFException("Record " + entry.id + " runs past the end of " + entry.segment.file);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static ReceivedData toReceivedData(Entry entry, byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE));
+        in.readInt();               // id
+        in.readLong();              // receivedAt
+        readString(in);             // status
+        readString(in);             // sender ip
+        readString(in);             // client message id
+
+        ReceivedData data = new ReceivedData();
+        data.setId(entry.id);
+        data.setReceivedAt(entry.receivedAt);
+        data.setStatus(entry.status);
+        data.setSenderIp(entry.senderIp);
+        data.setClientMsgId(entry.clientMsgId);
+        data.setDataContent(readString(in));
+        return data;
+    }
+
+    // Rebuilds the index from the segment files, oldest first
+    private void replay(File dir) throws IOException {
+        File[] files = dir.listFiles((parent, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        TreeMap<Long, File> ordered = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    String number = file.getName().substring(SEGMENT_PREFIX.length(),
+                            file.getName().length() - SEGMENT_SUFFIX.length());
+                    ordered.put(Long.parseLong(number), file);
+                } catch (NumberFormatException e) {
+                    Log.warn("⚠️ Ignoring unexpected file " + file);
+                }
+            }
+        }
+
+        for (Map.Entry<Long, File> file : ordered.entrySet()) {
+            Segment segment = openSegment(file.getValue(), file.getKey());
+            segments.put(segment.number, segment);
+            active = segment;
+
+            long validLength = replaySegment(segment);
+            if (validLength < segment.size) {
+                Log.warn("⚠️ Dropping " + (segment.size - validLength) + " unreadable bytes at the end of "
+                        + segment.file);
+                segment.channel.truncate(validLength);
+                segment.size = validLength;
+            }
+        }
+    }
+
+    private long replaySegment(Segment segment) throws IOException {
+        long position = 0;
+        CRC32 crc = new CRC32();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(segment.file), 64 * 1024))) {
+            while (position + RECORD_HEADER_SIZE <= segment.size) {
+                byte type = in.readByte();
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > MAX_PAYLOAD_SIZE
+                        || position + RECORD_HEADER_SIZE + length > segment.size) {
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+
+                int recordLength = RECORD_HEADER_SIZE + length;
+                if (!apply(segment, type, payload, position, recordLength)) break;
+                position += recordLength;
+            }
+        } catch (EOFException e) {
+            // Torn tail; everything up to position is good
+        }
+        return position;
+    }
+
+    private boolean apply(Segment segment, byte type, byte[] payload, long offset, int recordLength)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        switch (type) {
+            case RECORD_PUT: {
+                int id = in.readInt();
+                LocalDateTime receivedAt = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC);
+                String status = readString(in);
+                String senderIp = readString(in);
+                String clientMsgId = readString(in);
+
+                // A compaction copy replaces the original
+                Entry previous = byId.get(id);
+                if (previous != null) {
+                    unindex(previous);
+                }
+                index(new Entry(id, receivedAt, status, senderIp, clientMsgId, segment, offset, recordLength));
+                nextId = Math.max(nextId, id + 1);
+                return true;
+            }
+            case RECORD_DELETE: {
+                Entry entry = byId.get(in.readInt());
+                if (entry != null) {
+                    unindex(entry);
+                }
+                segment.deadBytes += recordLength;
+                return true;
+            }
+            case RECORD_CLEAR:
+                for (Segment earlier : segments.headMap(segment.number, false).values()) {
+                    earlier.deadBytes = earlier.size;
+                }
+                byTime.clear();
+                byId.clear();
+                recordCount = 0;
+                byClientMsgId.clear();
+                nextId = Math.max(nextId, in.readInt());
+                segment.deadBytes += recordLength;
+                return true;
+            case RECORD_NEXT_ID:
+                nextId = Math.max(nextId, in.readInt());
+                segment.deadBytes += recordLength;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static byte[] encodePut(int id, LocalDateTime receivedAt, String status, String senderIp,
+                                    String clientMsgId, String content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (content != null ? content.length() * 2 : 0));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(id);
+            out.writeLong(receivedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+            writeString(out, status);
+            writeString(out, senderIp);
+            writeString(out, clientMsgId);
+            writeString(out, content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRecord(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .put(type)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    // Length-prefixed UTF-8; -1 for null. Not writeUTF, which stops at 64 KB.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static Segment openSegment(File file, long number) throws IOException {
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        return new Segment(number, file, channel, channel.size());
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            closeQuietly(segment.channel);
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private void closeLockFile() {
+        try {
+            if (directoryLock != null) directoryLock.release();
+        } catch (IOException ignored) {
+        }
+        closeQuietly(lockFile);
+        directoryLock = null;
+        lockFile = null;
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class Segment {
+        final long number;
+        final File file;
+        final FileChannel channel;
+        long size;
+        // Bytes no longer needed to rebuild the index
+        long deadBytes;
+
+        Segment(long number, File file, FileChannel channel, long size) {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    // Index entry for one live row; the text stays on disk
+    private static final class Entry {
+        final int id;
+        final LocalDateTime receivedAt;
+        final String status;
+        final String senderIp;
+        final String clientMsgId;
+        final Segment segment;
+        final long offset;
+        final int length;
+
+        Entry(int id, LocalDateTime receivedAt, String status, String senderIp, String clientMsgId,
+              Segment segment, long offset, int length) {
+            this.id = id;
+            this.receivedAt = receivedAt;
+            this.status = status;
+            this.senderIp = senderIp;
+            this.clientMsgId = clientMsgId;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        // Search key for keyset paging
+        static Entry probe(LocalDateTime receivedAt, int id) {
+            return new Entry(id, receivedAt, null, null, null, null, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ignite.desktop.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Wire formats spoken on the ingest port, detected per connection from the first byte.
+//
+// Text: one UTF-8 line per message, "\n" terminated. Plain lines are v1,
+// "MSG2 <seq> <payload>" lines are v2 (see SocketServerService). A "PING2"
+// line is a keep-alive and is answered with "PONG2".
+// "MSG2I <seq> <client-msg-id> <payload>" is v2 with a client message id, which
+// makes resends idempotent. The id has no spaces and is at most
+// MAX_CLIENT_MSG_ID_LENGTH characters.
+//
+// Binary: every frame is
+//   [0xA5 magic][type: 1 byte][length: 4 bytes, big-endian][payload: length bytes]
+// Sequenced types start their payload with an 8-byte sequence number; the
+// rest is UTF-8 text. Payloads may contain newlines. TYPE_DATA_ID puts
+// [id length: 1 byte][id: UTF-8] between the sequence number and the text.
+// 0xA5 is never the first byte of UTF-8 text, so the two framings cannot be
+// confused.
+final class FrameCodec {
+
+    static final byte MAGIC = (byte) 0xA5;
+    static final int HEADER_SIZE = 6;
+    static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    // Client -> server
+    static final byte TYPE_DATA = 0x01;       // v1 message, answered with TYPE_REPLY
+    static final byte TYPE_DATA_SEQ = 0x02;   // v2 message, answered later with TYPE_ACK / TYPE_NAK
+    static final byte TYPE_PING = 0x03;       // keep-alive, answered with TYPE_PONG, never stored
+    static final byte TYPE_DATA_ID = 0x04;    // TYPE_DATA_SEQ plus a client message id
+    // Server -> client
+    static final byte TYPE_REPLY = 0x10;
+    static final byte TYPE_ACK = 0x11;        // cumulative, like "ACK2 n"
+    static final byte TYPE_NAK = 0x12;
+    static final byte TYPE_PONG = 0x13;
+    static final byte TYPE_BUSY = 0x14;       // not stored because the server is overloaded; resend later
+    static final byte TYPE_ERROR = 0x1F;      // sent before the server closes a bad connection
+
+    static final String V2_MESSAGE_PREFIX = "MSG2 ";
+    static final String V2_ID_MESSAGE_PREFIX = "MSG2I ";
+    static final String V2_ACK_PREFIX = "ACK2 ";
+    static final String V2_NAK_PREFIX = "NAK2 ";
+    static final String V2_BUSY_PREFIX = "BUSY2 ";
+    static final String V2_ERROR_REPLY = "ERR2 malformed";
+    static final String V2_PING = "PING2";
+    static final String V2_PONG = "PONG2";
+
+    // Matches the client_msg_id column
+    static final int MAX_CLIENT_MSG_ID_LENGTH = 64;
+
+    private FrameCodec() {}
+
+    static boolean hasSequence(byte type) {
+        return type == TYPE_DATA_SEQ || type == TYPE_DATA_ID
+                || type == TYPE_ACK || type == TYPE_NAK || type == TYPE_BUSY;
+    }
+
+    static byte[] encode(byte type, String text) {
+        return encode(type, -1, text);
+    }
+
+    static byte[] encode(byte type, long sequence, String text) {
+        byte[] body = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = body.length + (hasSequence(type) ? Long.BYTES : 0);
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + length);
+        frame.put(MAGIC).put(type).putInt(length);
+        if (hasSequence(type)) {
+            frame.putLong(sequence);
+        }
+        frame.put(body);
+        return frame.array();
+    }
+
+    static byte[] encodeLine(String line) {
+        return (line + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    interface Sink {
+        // sequence is -1 for v1 messages; clientMsgId is null unless the client sent one
+        void onMessage(long sequence, String clientMsgId, String text);
+
+        void onPing();
+
+        void onMalformed(String reason);
+    }
+
+    // Incremental decoder for one connection. Bytes can arrive in any split;
+    // nothing is buffered beyond MAX_FRAME_SIZE. Not thread-safe: feed it from
+    // the connection's reader only.
+    static final class Decoder {
+
+        private enum Framing { UNKNOWN, TEXT, BINARY }
+
+        private volatile Framing framing = Framing.UNKNOWN;
+
+        private byte[] buffer = new byte[256];
+        private ByteBuffer bufferView = ByteBuffer.wrap(buffer);
+        private int length = 0;
+
+        private final byte[] header = new byte[HEADER_SIZE];
+        private int headerLength = 0;
+        private byte frameType;
+        private int frameLength = -1;
+
+        private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        boolean isBinary() {
+            return framing == Framing.BINARY;
+        }
+
+        // Consumes everything in `in`. Returns false on a protocol violation;
+        // the connection should then be closed.
+        boolean feed(ByteBuffer in, Sink sink) {
+            if (framing == Framing.UNKNOWN && in.hasRemaining()) {
+                framing = in.get(in.position()) == MAGIC ? Framing.BINARY : Framing.TEXT;
+            }
+            return framing == Framing.BINARY ? feedBinary(in, sink) : feedText(in, sink);
+        }
+
+        private boolean feedText(ByteBuffer in, Sink sink) {
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                if (b == '\n') {
+                    int end = length;
+                    if (end > 0 && buffer[end - 1] == '\r') end--;
+                    String line = decode(0, end);
+                    length = 0;
+                    if (!dispatchLine(line, sink)) return false;
+                } else {
+                    if (length == MAX_FRAME_SIZE) {
+                        sink.onMalformed("line longer than " + MAX_FRAME_SIZE + " bytes");
+                        return false;
+                    }
+                    ensureCapacity(length + 1);
+                    buffer[length++] = b;
+                }
+            }
+            return true;
+        }
+
+        private boolean dispatchLine(String line, Sink sink) {
+            if (line.equals(V2_PING)) {
+                sink.onPing();
+                return true;
+            }
+            boolean withId = line.startsWith(V2_ID_MESSAGE_PREFIX);
+            if (!withId && !line.startsWith(V2_MESSAGE_PREFIX)) {
+                sink.onMessage(-1, null, line);
+                return true;
+            }
+
+            int start = withId ? V2_ID_MESSAGE_PREFIX.length() : V2_MESSAGE_PREFIX.length();
+            int end = line.indexOf(' ', start);
+            long sequence;
+            try {
+                sequence = Long.parseLong(end < 0 ? line.substring(start) : line.substring(start, end));
+            } catch (NumberFormatException e) {
+                sequence = -1;
+            }
+            if (sequence < 0) {
+                // The line boundary is intact, so the connection can carry on
+                sink.onMalformed("bad v2 sequence");
+                return true;
+            }
+            if (!withId) {
+                sink.onMessage(sequence, null, end < 0 ? "" : line.substring(end + 1));
+                return true;
+            }
+
+            int idStart = end < 0 ? line.length() : end + 1;
+            int idEnd = line.indexOf(' ', idStart);
+            if (idEnd < 0) idEnd = line.length();
+            if (idEnd == idStart || idEnd - idStart > MAX_CLIENT_MSG_ID_LENGTH) {
+                sink.onMalformed("bad client message id");
+                return true;
+            }
+            sink.onMessage(sequence, line.substring(idStart, idEnd),
+                    idEnd < line.length() ? line.substring(idEnd + 1) : "");
+            return true;
+        }
+
+        private boolean feedBinary(ByteBuffer in, Sink sink) {
+            while (in.hasRemaining()) {
+                if (frameLength < 0) {
+                    while (headerLength < HEADER_SIZE && in.hasRemaining()) {
+                        header[headerLength++] = in.get();
+                    }
+                    if (headerLength < HEADER_SIZE) return true;
+
+                    if (header[0] != MAGIC) {
+                        sink.onMalformed("bad frame magic");
+                        return false;
+                    }
+                    frameType = header[1];
+                    frameLength = ((header[2] & 0xFF) << 24) | ((header[3] & 0xFF) << 16)
+                            | ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+                    if (frameType != TYPE_DATA && frameType != TYPE_DATA_SEQ
+                            && frameType != TYPE_DATA_ID && frameType != TYPE_PING) {
+                        sink.onMalformed("unexpected frame type " + frameType);
+                        return false;
+                    }
+                    int minLength = frameType == TYPE_DATA_ID ? Long.BYTES + 2
+                            : frameType == TYPE_DATA_SEQ ? Long.BYTES : 0;
+                    if (frameLength < minLength || frameLength > MAX_FRAME_SIZE) {
+                        sink.onMalformed("bad frame length " + frameLength);
+                        return false;
+                    }
+                    ensureCapacity(frameLength);
+                    length = 0;
+                }
+
+                int take = Math.min(frameLength - length, in.remaining());
+                in.get(buffer, length, take);
+                length += take;
+
+                if (length == frameLength && frameType == TYPE_PING) {
+                    headerLength = 0;
+                    frameLength = -1;
+                    length = 0;
+                    sink.onPing();
+                } else if (length == frameLength) {
+                    long sequence = -1;
+                    int offset = 0;
+                    String clientMsgId = null;
+                    if (hasSequence(frameType)) {
+                        sequence = bufferView.getLong(0);
+                        offset = Long.BYTES;
+                    }
+                    if (frameType == TYPE_DATA_ID) {
+                        int idLength = buffer[offset] & 0xFF;
+                        if (idLength == 0 || idLength > MAX_CLIENT_MSG_ID_LENGTH
+                                || offset + 1 + idLength > frameLength) {
+                            sink.onMalformed("bad client message id");
+                            return false;
+                        }
+                        clientMsgId = decode(offset + 1, offset + 1 + idLength);
+                        offset += 1 + idLength;
+                    }
+                    String text = decode(offset, frameLength);
+
+                    headerLength = 0;
+                    frameLength = -1;
+                    length = 0;
+
+                    if (hasSequence(frameType) && sequence < 0) {
+                        sink.onMalformed("bad frame sequence");
+                        return false;
+                    }
+                    sink.onMessage(sequence, clientMsgId, text);
+                }
+            }
+            return true;
+        }
+
+        // Decodes into the reused char buffer; only the resulting String is allocated
+        private String decode(int from, int to) {
+            int maxChars = to - from;
+            if (chars.capacity() < maxChars) {
+                chars = CharBuffer.allocate(Math.max(maxChars, chars.capacity() * 2));
+            }
+            chars.clear();
+            bufferView.limit(to).position(from);
+            utf8.reset();
+            utf8.decode(bufferView, chars, true);
+            utf8.flush(chars);
+            bufferView.clear();
+            chars.flip();
+            return chars.toString();
+        }
+
+        private void ensureCapacity(int needed) {
+            if (buffer.length >= needed) return;
+            byte[] grown = new byte[Math.min(Math.max(needed, buffer.length * 2), MAX_FRAME_SIZE)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+            bufferView = ByteBuffer.wrap(buffer);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ignite.desktop.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admission control for the ingest port, shared by both ingest modes.
+// Only reading is slowed down: a connection is not read from while its own
+// rate limit or the global one is in debt, or while the persistence queue is
+// nearly full. Unread bytes stay in the socket buffers, so TCP flow control
+// pushes back on the sender. Messages that still find the queue full are
+// refused, with BUSY for v2 clients, and there is a cap on open connections.
+final class IngestAdmission {
+
+    // Reading pauses once the persistence queue is this full
+    private static final double QUEUE_HIGH_WATERMARK = 0.9;
+    private static final long QUEUE_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final PersistenceService persistenceService;
+
+    // 0 means unlimited for all three
+    private volatile int maxClients = 0;
+    private volatile double perConnectionRate = 0;
+    private volatile TokenBucket globalBucket;
+    private volatile double globalRate = 0;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong refusedConnections = new AtomicLong();
+    private final AtomicLong throttledReads = new AtomicLong();
+    private final AtomicLong queuePauses = new AtomicLong();
+    private final AtomicLong busyReplies = new AtomicLong();
+
+    IngestAdmission(PersistenceService persistenceService) {
+        this.persistenceService = persistenceService;
+    }
+
+    void setMaxClients(int maxClients) {
+        this.maxClients = Math.max(0, maxClients);
+    }
+
+    // Messages per second; bursts of up to one second's worth are let through.
+    // The per-connection limit applies to connections opened afterwards.
+    void setRateLimits(double perConnectionRate, double globalRate) {
+        this.perConnectionRate = Math.max(0, perConnectionRate);
+        this.globalRate = Math.max(0, globalRate);
+        this.globalBucket = globalRate > 0 ? new TokenBucket(globalRate, globalRate) : null;
+    }
+
+    boolean tryOpenConnection() {
+        int limit = maxClients;
+        while (true) {
+            int current = openConnections.get();
+            if (limit > 0 && current >= limit) {
+                refusedConnections.incrementAndGet();
+                return false;
+            }
+            if (openConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    // Called on the connection's reader for every decoded message
+    void onMessage(ClientConnection connection) {
+        if (connection.rateLimiter == null && perConnectionRate > 0) {
+            connection.rateLimiter = new TokenBucket(perConnectionRate, perConnectionRate);
+        }
+        if (connection.rateLimiter != null) {
+            connection.rateLimiter.take(1);
+        }
+        TokenBucket global = globalBucket;
+        if (global != null) {
+            global.take(1);
+        }
+    }
+
+    // How long to wait before reading from this connection again; 0 to read now.
+    // Called from the connection's reader only.
+    long readDelayNanos(ClientConnection connection) {
+        long delay = 0;
+        if (connection.rateLimiter != null) {
+            delay = connection.rateLimiter.nanosUntilAvailable();
+        }
+        TokenBucket global = globalBucket;
+        if (global != null) {
+            delay = Math.max(delay, global.nanosUntilAvailable());
+        }
+
+        boolean queueFull = delay == 0 && isQueueNearlyFull();
+        if (queueFull) {
+            delay = QUEUE_RECHECK_NANOS;
+        }
+
+        // Count each pause once, not every recheck
+        if (delay > 0 && !connection.readPaused) {
+            connection.readPaused = true;
+            (queueFull ? queuePauses : throttledReads).incrementAndGet();
+        } else if (delay == 0) {
+            connection.readPaused = false;
+        }
+        return delay;
+    }
+
+    // For blocking handlers: sleeps until the connection may be read again.
+    void awaitReadable(ClientConnection connection) throws InterruptedException {
+        long delay;
+        while ((delay = readDelayNanos(connection)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    void recordBusy() {
+        busyReplies.incrementAndGet();
+    }
+
+    private boolean isQueueNearlyFull() {
+        return persistenceService.getQueueDepth() >= persistenceService.getQueueCapacity() * QUEUE_HIGH_WATERMARK;
+    }
+
+    int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    long getRefusedConnections() {
+        return refusedConnections.get();
+    }
+
+    long getThrottledReads() {
+        return throttledReads.get();
+    }
+
+    long getQueuePauses() {
+        return queuePauses.get();
+    }
+
+    long getBusyReplies() {
+        return busyReplies.get();
+    }
+
+    String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("Max Clients: ").append(maxClients > 0 ? String.valueOf(maxClients) : "unlimited")
+                .append(" (refused ").append(refusedConnections.get()).append(")\n");
+        stats.append("Rate Limits: ").append(formatRate(perConnectionRate)).append(" per client, ")
+                .append(formatRate(globalRate)).append(" total\n");
+        stats.append("Throttled Reads: ").append(throttledReads.get())
+                .append(", Queue Pauses: ").append(queuePauses.get())
+                .append(", Busy Replies: ").append(busyReplies.get()).append("\n");
+        return stats.toString();
+    }
+
+    private static String formatRate(double rate) {
+        return rate > 0 ? String.format("%.0f msg/s", rate) : "unlimited";
+    }
+}
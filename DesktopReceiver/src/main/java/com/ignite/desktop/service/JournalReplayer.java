@@ -0,0 +1,64 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Background loader for the journal's backlog: whatever a restart, a database
+// outage or a full persistence queue left behind. Whenever the database is
+// reachable it bulk-loads those entries and then truncates the journal, once
+// the store has flushed what it was given.
+// isConnected() is a cached flag, so polling for a reconnect costs nothing.
+final class JournalReplayer {
+
+    private static final long INTERVAL_MILLIS = 2_000;
+
+    private final WriteAheadJournal journal;
+    private final DatabaseService databaseService;
+    private ScheduledExecutorService scheduler;
+
+    JournalReplayer(WriteAheadJournal journal, DatabaseService databaseService) {
+        this.journal = journal;
+        this.databaseService = databaseService;
+    }
+
+    synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    private void runOnce() {
+        try {
+            if (journal.getBacklog() > 0 && databaseService.isConnected()) {
+                int replayed = journal.replay(databaseService::saveAll, databaseService::isConnected);
+                if (replayed > 0) {
+                    Log.info("📓 Replayed " + replayed + " journaled messages into the database");
+                }
+                journal.truncate(journal.getBacklog() == 0, databaseService::flush);
+            } else {
+                journal.truncate(false, databaseService::flush);
+            }
+        } catch (RuntimeException e) {
+            Log.error("❌ Journal replay failed: " + e.getMessage());
+        }
+    }
+}
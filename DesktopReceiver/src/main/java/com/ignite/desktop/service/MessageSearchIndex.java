@@ -0,0 +1,266 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// In-memory n-gram index over the rows held in the live list.
+// Content and sender IP are indexed as 1-, 2- and 3-grams, so a query only
+// verifies rows that contain all of its grams. Status has few distinct values
+// and is kept as one bitmap per status instead.
+// Updates come from the FX thread via the list listener; search() may run on any thread.
+public class MessageSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    // Document numbers are reused, so the bitmaps stay as small as the list
+    private final Map<ReceivedData, Integer> docNumbers = new IdentityHashMap<>();
+    private final List<ReceivedData> docs = new ArrayList<>();
+    private final List<String> contentText = new ArrayList<>();
+    private final List<String> ipText = new ArrayList<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+
+    private final Map<Long, BitSet> grams = new HashMap<>();
+    private final Map<String, BitSet> statusDocs = new HashMap<>();
+    private final Map<ReceivedData, String> indexedStatus = new IdentityHashMap<>();
+
+    // Last query and its result, so a longer query only re-checks earlier
+    // matches plus rows that arrived since
+    private String lastQuery;
+    private BitSet lastResult;
+    private final BitSet addedSinceLastQuery = new BitSet();
+
+    private ObservableList<ReceivedData> trackedList;
+
+    private final ListChangeListener<ReceivedData> listListener = change -> {
+        if (change.getList().isEmpty()) {
+            clear();
+            return;
+        }
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) continue;
+            for (ReceivedData removed : change.getRemoved()) {
+                remove(removed);
+            }
+            for (ReceivedData added : change.getAddedSubList()) {
+                add(added);
+            }
+        }
+    };
+
+    public void track(ObservableList<ReceivedData> list) {
+        if (trackedList == list) return;
+        if (trackedList != null) {
+            trackedList.removeListener(listListener);
+        }
+
+        clear();
+        trackedList = list;
+        for (ReceivedData data : list) {
+            add(data);
+        }
+        list.addListener(listListener);
+    }
+
+    public synchronized void add(ReceivedData data) {
+        if (docNumbers.containsKey(data)) return;
+
+        int doc;
+        String content = normalize(data.getDataContent());
+        String ip = normalize(data.getSenderIp());
+        if (!freeDocs.isEmpty()) {
+            doc = freeDocs.pop();
+            docs.set(doc, data);
+            contentText.set(doc, content);
+            ipText.set(doc, ip);
+        } else {
+            doc = docs.size();
+            docs.add(data);
+            contentText.add(content);
+            ipText.add(ip);
+        }
+        docNumbers.put(data, doc);
+
+        for (long gram : gramsOf(content, ip)) {
+            grams.computeIfAbsent(gram, k -> new BitSet()).set(doc);
+        }
+
+        String status = statusOf(data);
+        indexedStatus.put(data, status);
+        statusDocs.computeIfAbsent(status, k -> new BitSet()).set(doc);
+
+        addedSinceLastQuery.set(doc);
+    }
+
+    public synchronized void remove(ReceivedData data) {
+        Integer doc = docNumbers.remove(data);
+        if (doc == null) return;
+
+        for (long gram : gramsOf(contentText.get(doc), ipText.get(doc))) {
+            BitSet bits = grams.get(gram);
+            if (bits != null) {
+                bits.clear(doc);
+                if (bits.isEmpty()) grams.remove(gram);
+            }
+        }
+
+        BitSet statusBits = statusDocs.get(indexedStatus.remove(data));
+        if (statusBits != null) statusBits.clear(doc);
+
+        if (lastResult != null) lastResult.clear(doc);
+        addedSinceLastQuery.clear(doc);
+
+        docs.set(doc, null);
+        contentText.set(doc, null);
+        ipText.set(doc, null);
+        freeDocs.push(doc);
+    }
+
+    // Status moves from RECEIVED to the persisted status after the row is indexed.
+    public synchronized void updateStatus(ReceivedData data) {
+        Integer doc = docNumbers.get(data);
+        if (doc == null) return;
+
+        String newStatus = statusOf(data);
+        String oldStatus = indexedStatus.put(data, newStatus);
+        if (newStatus.equals(oldStatus)) return;
+
+        BitSet oldBits = statusDocs.get(oldStatus);
+        if (oldBits != null) oldBits.clear(doc);
+        statusDocs.computeIfAbsent(newStatus, k -> new BitSet()).set(doc);
+
+        // A status change can add the row to a previous result
+        addedSinceLastQuery.set(doc);
+    }
+
+    public synchronized void clear() {
+        docNumbers.clear();
+        docs.clear();
+        contentText.clear();
+        ipText.clear();
+        freeDocs.clear();
+        grams.clear();
+        statusDocs.clear();
+        indexedStatus.clear();
+        lastQuery = null;
+        lastResult = null;
+        addedSinceLastQuery.clear();
+    }
+
+    public synchronized int size() {
+        return docNumbers.size();
+    }
+
+    // Rows whose content, sender IP or status contains the query (case-insensitive).
+    // An empty query matches nothing; callers treat it as "no filter".
+    public synchronized Set<ReceivedData> search(String query) {
+        Set<ReceivedData> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        String q = normalize(query);
+        if (q.isEmpty()) return matches;
+
+        BitSet result = new BitSet();
+
+        // Content/IP candidates: rows containing every gram of the query
+        BitSet candidates;
+        if (lastQuery != null && lastResult != null && q.contains(lastQuery)) {
+            candidates = (BitSet) lastResult.clone();
+            candidates.or(addedSinceLastQuery);
+        } else {
+            candidates = candidatesFor(q);
+        }
+
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            String content = contentText.get(doc);
+            if (content != null && (content.contains(q) || ipText.get(doc).contains(q))) {
+                result.set(doc);
+            }
+        }
+
+        for (Map.Entry<String, BitSet> entry : statusDocs.entrySet()) {
+            if (entry.getKey().contains(q)) {
+                result.or(entry.getValue());
+            }
+        }
+
+        lastQuery = q;
+        lastResult = (BitSet) result.clone();
+        addedSinceLastQuery.clear();
+
+        for (int doc = result.nextSetBit(0); doc >= 0; doc = result.nextSetBit(doc + 1)) {
+            matches.add(docs.get(doc));
+        }
+        return matches;
+    }
+
+    // Database ids of the matching rows; rows not saved yet have no id and are skipped.
+    public List<Integer> searchIds(String query) {
+        List<Integer> ids = new ArrayList<>();
+        for (ReceivedData data : search(query)) {
+            if (data.getId() > 0) ids.add(data.getId());
+        }
+        return ids;
+    }
+
+    private BitSet candidatesFor(String q) {
+        int n = Math.min(MAX_GRAM, q.length());
+        BitSet candidates = null;
+
+        for (int i = 0; i + n <= q.length(); i++) {
+            BitSet bits = grams.get(gramKey(q, i, n));
+            if (bits == null) return new BitSet();
+
+            if (candidates == null) {
+                candidates = (BitSet) bits.clone();
+            } else {
+                candidates.and(bits);
+            }
+            if (candidates.isEmpty()) break;
+        }
+        return candidates != null ? candidates : new BitSet();
+    }
+
+    private static Set<Long> gramsOf(String content, String ip) {
+        Set<Long> keys = new HashSet<>();
+        addGrams(keys, content);
+        addGrams(keys, ip);
+        return keys;
+    }
+
+    private static void addGrams(Set<Long> keys, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            for (int n = 1; n <= MAX_GRAM && i + n <= text.length(); n++) {
+                keys.add(gramKey(text, i, n));
+            }
+        }
+    }
+
+    // Packs up to three chars plus the gram length into one long
+    private static long gramKey(String text, int start, int n) {
+        long key = n;
+        for (int i = start; i < start + n; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    private static String statusOf(ReceivedData data) {
+        return normalize(data.getStatus());
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+}
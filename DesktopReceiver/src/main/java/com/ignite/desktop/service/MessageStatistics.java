@@ -0,0 +1,214 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Incrementally maintained counters for the messages currently held in the
+// live list: per status, per sender, plus rolling arrival rates.
+// Every update is O(1); nothing ever rescans the list.
+// Mutations come from the FX thread (list listener and status updates), while
+// the getters and snapshot() are safe to call from any thread for exporting.
+public class MessageStatistics {
+
+    private static MessageStatistics instance;
+
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    // Status each tracked row was last counted under
+    private final Map<ReceivedData, String> countedStatus = new IdentityHashMap<>();
+    private final Map<String, Integer> statusCounts = new HashMap<>();
+    private final Map<String, Integer> senderCounts = new HashMap<>();
+
+    // One bucket per second, indexed by epoch second modulo the window
+    private final long[] rateBuckets = new long[RATE_WINDOW_SECONDS];
+    private final long[] rateBucketSecond = new long[RATE_WINDOW_SECONDS];
+    private long totalArrivals = 0;
+
+    private final ReadOnlyIntegerWrapper total = new ReadOnlyIntegerWrapper(0);
+    private final ReadOnlyIntegerWrapper saved = new ReadOnlyIntegerWrapper(0);
+    private final ReadOnlyIntegerWrapper errors = new ReadOnlyIntegerWrapper(0);
+    private final ReadOnlyIntegerWrapper pending = new ReadOnlyIntegerWrapper(0);
+
+    private ObservableList<ReceivedData> trackedList;
+
+    private final ListChangeListener<ReceivedData> listListener = change -> {
+        // A clear() resets in O(1) instead of walking the removed rows
+        if (change.getList().isEmpty()) {
+            reset();
+            return;
+        }
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) continue;
+            for (ReceivedData removed : change.getRemoved()) {
+                recordRemoved(removed);
+            }
+            for (ReceivedData added : change.getAddedSubList()) {
+                recordAdded(added);
+            }
+        }
+    };
+
+    private MessageStatistics() {}
+
+    public static synchronized MessageStatistics getInstance() {
+        if (instance == null) {
+            instance = new MessageStatistics();
+        }
+        return instance;
+    }
+
+    public void track(ObservableList<ReceivedData> list) {
+        if (trackedList == list) return;
+        if (trackedList != null) {
+            trackedList.removeListener(listListener);
+        }
+
+        reset();
+        trackedList = list;
+        for (ReceivedData data : list) {
+            recordAdded(data);
+        }
+        list.addListener(listListener);
+    }
+
+    public synchronized void recordAdded(ReceivedData data) {
+        if (countedStatus.containsKey(data)) return;
+
+        String status = normalize(data.getStatus());
+        countedStatus.put(data, status);
+        statusCounts.merge(status, 1, Integer::sum);
+        senderCounts.merge(normalize(data.getSenderIp()), 1, Integer::sum);
+        publish();
+    }
+
+    public synchronized void recordRemoved(ReceivedData data) {
+        String status = countedStatus.remove(data);
+        if (status == null) return;
+
+        decrement(statusCounts, status);
+        decrement(senderCounts, normalize(data.getSenderIp()));
+        publish();
+    }
+
+    // Re-buckets a tracked row after its status changed; untracked rows are ignored.
+    public synchronized void recordStatusChange(ReceivedData data) {
+        String oldStatus = countedStatus.get(data);
+        String newStatus = normalize(data.getStatus());
+        if (oldStatus == null || oldStatus.equals(newStatus)) return;
+
+        countedStatus.put(data, newStatus);
+        decrement(statusCounts, oldStatus);
+        statusCounts.merge(newStatus, 1, Integer::sum);
+        publish();
+    }
+
+    // Live arrival from a client, feeds the rolling rate.
+    public synchronized void recordArrival() {
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        if (rateBucketSecond[slot] != second) {
+            rateBucketSecond[slot] = second;
+            rateBuckets[slot] = 0;
+        }
+        rateBuckets[slot]++;
+        totalArrivals++;
+    }
+
+    public synchronized void reset() {
+        countedStatus.clear();
+        statusCounts.clear();
+        senderCounts.clear();
+        publish();
+    }
+
+    public synchronized int getTotal() {
+        return countedStatus.size();
+    }
+
+    public synchronized int getStatusCount(String status) {
+        return statusCounts.getOrDefault(status, 0);
+    }
+
+    public synchronized int getSenderCount(String senderIp) {
+        return senderCounts.getOrDefault(senderIp, 0);
+    }
+
+    public synchronized Map<String, Integer> getStatusCounts() {
+        return new LinkedHashMap<>(statusCounts);
+    }
+
+    public synchronized Map<String, Integer> getSenderCounts() {
+        return new LinkedHashMap<>(senderCounts);
+    }
+
+    public synchronized long getTotalArrivals() {
+        return totalArrivals;
+    }
+
+    // Average arrivals per second over the last windowSeconds (max 60), excluding the current second.
+    public synchronized double getMessagesPerSecond(int windowSeconds) {
+        int window = Math.max(1, Math.min(windowSeconds, RATE_WINDOW_SECONDS - 1));
+        long now = System.currentTimeMillis() / 1000;
+
+        long sum = 0;
+        for (int i = 1; i <= window; i++) {
+            long second = now - i;
+            int slot = (int) (second % RATE_WINDOW_SECONDS);
+            if (rateBucketSecond[slot] == second) {
+                sum += rateBuckets[slot];
+            }
+        }
+        return (double) sum / window;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("total", countedStatus.size());
+        snapshot.put("byStatus", new LinkedHashMap<>(statusCounts));
+        snapshot.put("bySender", new LinkedHashMap<>(senderCounts));
+        snapshot.put("totalArrivals", totalArrivals);
+        snapshot.put("ratePerSecond10s", getMessagesPerSecond(10));
+        snapshot.put("ratePerSecond60s", getMessagesPerSecond(RATE_WINDOW_SECONDS - 1));
+        return snapshot;
+    }
+
+    // FX bindings for the stat labels
+    public ReadOnlyIntegerProperty totalProperty() {
+        return total.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty savedCountProperty() {
+        return saved.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty errorCountProperty() {
+        return errors.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty pendingCountProperty() {
+        return pending.getReadOnlyProperty();
+    }
+
+    private void publish() {
+        total.set(countedStatus.size());
+        saved.set(statusCounts.getOrDefault("SAVED", 0));
+        errors.set(statusCounts.getOrDefault("ERROR", 0) + statusCounts.getOrDefault("NOT_SAVED", 0));
+        pending.set(statusCounts.getOrDefault("RECEIVED", 0));
+    }
+
+    private static void decrement(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value : "UNKNOWN";
+    }
+}
@@ -0,0 +1,58 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Where received messages are kept. DatabaseService picks one implementation
+// and forwards to it; it also checks isAvailable() before every call, so
+// implementations only have to cope with failures during the call itself.
+// Every method may be called from several threads at once.
+interface MessageStore {
+
+    // Throws when the store cannot be used at all
+    void open() throws IOException, SQLException;
+
+    void close();
+
+    // Cheap and non-blocking
+    boolean isAvailable();
+
+    String describe();
+
+    boolean saveReceivedData(ReceivedData data);
+
+    // All or nothing. Ids are written back to every row; a row whose client
+    // message id is already stored gets the id of the first copy.
+    boolean saveAll(List<ReceivedData> dataList);
+
+    // Forces everything saved so far to disk; false when that cannot be
+    // confirmed. Saves return before that point on stores that sync lazily.
+    boolean flush();
+
+    List<ReceivedData> getAllReceivedData();
+
+    // Keyset paging on (receivedAt, id), newest first; receivedAt is null for the first page
+    List<ReceivedData> getOlderPage(LocalDateTime receivedAt, int id, int limit);
+
+    List<ReceivedData> getNewerPage(LocalDateTime receivedAt, int id, int limit);
+
+    List<ReceivedData> searchOlderPage(String query, LocalDateTime receivedAt, int id, int limit);
+
+    List<ReceivedData> searchNewerPage(String query, LocalDateTime receivedAt, int id, int limit);
+
+    // Counts no further than DatabaseService.SEARCH_COUNT_CAP + 1; -1 on failure
+    int estimateSearchCount(String query);
+
+    boolean deleteData(int id);
+
+    boolean clearAllData();
+
+    // Kept in memory; cheap enough to call after every message
+    int getRecordCount();
+
+    String getStats();
+}
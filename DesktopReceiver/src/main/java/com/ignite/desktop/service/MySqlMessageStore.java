@@ -0,0 +1,782 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
+
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// The received_data table on a MySQL server, reached through ConnectionPool
+// and watched by ConnectionHealthMonitor.
+final class MySqlMessageStore implements MessageStore {
+
+    private volatile ConnectionPool pool;
+
+    private String host = "localhost";
+    private String port = "3306";
+    private String database = "ignite_comm_db";
+    private String username = "root";
+    private String password = "1234";
+
+    private volatile boolean isConnected = false;
+
+    // Pool settings, applied on the next open()
+    private int poolMinSize = 2;
+    private int poolMaxSize = 8;
+    private long poolIdleTimeoutMillis = 5 * 60_000;
+    private long poolBorrowTimeoutMillis = 10_000;
+
+    private String jdbcUrl;
+    private final ConnectionHealthMonitor healthMonitor =
+            new ConnectionHealthMonitor(this::probeConnection, this::reopenPool);
+
+    // InnoDB ignores shorter words in FULLTEXT (innodb_ft_min_token_size)
+    private static final int FULLTEXT_MIN_TOKEN = 3;
+
+    private volatile boolean fullTextAvailable = false;
+
+    // received_at is when the message arrived, which for a journal replay can
+    // be long before the insert; the column default only stands in when unset
+    private static final String INSERT_SQL =
+            "INSERT INTO received_data (data_content, sender_ip, status, received_at) " +
+            "VALUES (?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+    // A resent message hits uk_client_msg_id and leaves the first row untouched.
+    // Unlike INSERT IGNORE this does not also swallow truncation and other errors.
+    // With useAffectedRows such a row counts 0, a new one 1, so the statement's
+    // update count is the number of rows added. Sent as one multi-row statement
+    // because a rewritten JDBC batch reports no per-row counts.
+    private static final String INSERT_WITH_ID_SQL =
+            "INSERT INTO received_data (data_content, sender_ip, status, received_at, client_msg_id) VALUES ";
+    private static final String INSERT_WITH_ID_ROW = "(?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP), ?)";
+    private static final String INSERT_WITH_ID_SUFFIX = " ON DUPLICATE KEY UPDATE id = id";
+    private static final int INSERT_WITH_ID_ROWS = 500;
+
+    // Partitioning and retention, applied on the next open()
+    private DatabaseService.PartitionScheme partitionScheme = DatabaseService.PartitionScheme.NONE;
+    private int retentionDays = 0;
+    private File archiveDirectory;
+    private PartitionMaintenance maintenance;
+
+    // A partitioned table cannot keep uk_client_msg_id, so inserts of rows
+    // with a client id check for earlier copies one transaction at a time
+    private volatile boolean partitioned = false;
+    private final ReentrantLock dedupLock = new ReentrantLock();
+
+    // Row count kept up to date by this store's own writes, so the UI never
+    // runs COUNT(*) per message. Seeded on open() and checked against the
+    // table every few minutes, which catches rows removed by retention or
+    // written by another station. The count is countBase plus every delta
+    // recorded since the store was created.
+    private volatile long countBase = 0;
+    private final AtomicLong countDeltas = new AtomicLong();
+    private static final long RECONCILE_INTERVAL_MINUTES = 5;
+    private ScheduledExecutorService reconciler;
+
+    void setConnectionParams(String host, String port,
+                             String database, String username, String password) {
+        this.host = host;
+        this.port = port;
+        this.database = database;
+        this.username = username;
+        this.password = password;
+    }
+
+    void setPoolParams(int minSize, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this.poolMinSize = minSize;
+        this.poolMaxSize = maxSize;
+        this.poolIdleTimeoutMillis = idleTimeoutMillis;
+        this.poolBorrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    void setPartitioning(DatabaseService.PartitionScheme scheme) {
+        this.partitionScheme = scheme;
+    }
+
+    void setRetention(int retentionDays, File archiveDirectory) {
+        this.retentionDays = retentionDays;
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    void setOnHealthChangeCallback(Consumer<Boolean> callback) {
+        healthMonitor.setOnHealthChangeCallback(callback);
+    }
+
+    ConnectionHealthMonitor getHealthMonitor() {
+        return healthMonitor;
+    }
+
+    @Override
+    public void open() throws SQLException {
+        try {
+            // Load MySQL driver explicitly
+            Class.forName("com.mysql.cj.jdbc.Driver");
+
+            String url = String.format(
+                    "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC" +
+                            "&rewriteBatchedStatements=true&useAffectedRows=true",
+                    host, port, database
+            );
+
+            Log.info("🔄 Connecting to database: " + url);
+            healthMonitor.stop();
+            stopMaintenance();
+            stopReconciler();
+            jdbcUrl = url;
+            ConnectionPool previous = pool;
+            pool = new ConnectionPool(url, username, password,
+                    poolMinSize, poolMaxSize, poolIdleTimeoutMillis, poolBorrowTimeoutMillis);
+            if (previous != null) {
+                previous.close();
+            }
+            isConnected = true;
+
+            Log.info("✅ Database connected successfully!");
+
+            try (Connection connection = pool.borrow()) {
+                int version = new SchemaMigrator().migrate(connection);
+                Log.info("✅ Schema at V" + version);
+            }
+            DatabaseService.PartitionScheme scheme = ensurePartitioning();
+            detectFullText();
+
+            reconcileRecordCount();
+            startReconciler();
+            healthMonitor.start();
+            if (scheme != DatabaseService.PartitionScheme.NONE || retentionDays > 0) {
+                startMaintenance(scheme);
+            }
+        } catch (ClassNotFoundException e) {
+            Log.error("❌ MySQL Driver not found: " + e.getMessage());
+            throw new SQLException("MySQL Driver not found", e);
+        } catch (SQLException e) {
+            isConnected = false;
+            // A failed migration leaves a pool behind; don't keep its connections
+            healthMonitor.stop();
+            stopMaintenance();
+            stopReconciler();
+            ConnectionPool current = pool;
+            if (current != null && !current.isClosed()) {
+                current.close();
+            }
+            Log.error("❌ Database connection failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Converts the table the first time partitioning is switched on. Returns the
+    // scheme the table is actually partitioned by, which wins over the setting:
+    // going back to one unpartitioned table is a manual job.
+    private DatabaseService.PartitionScheme ensurePartitioning() {
+        DatabaseService.PartitionScheme current = DatabaseService.PartitionScheme.NONE;
+        try (Connection connection = pool.borrow()) {
+            current = PartitionMaintenance.detectScheme(connection);
+            if (current == DatabaseService.PartitionScheme.NONE
+                    && partitionScheme != DatabaseService.PartitionScheme.NONE) {
+                PartitionMaintenance.partitionTable(connection, partitionScheme);
+                current = partitionScheme;
+            }
+        } catch (SQLException e) {
+            Log.warn("⚠️ Could not partition table: " + e.getMessage());
+        }
+        partitioned = current != DatabaseService.PartitionScheme.NONE;
+        return current;
+    }
+
+    private void startMaintenance(DatabaseService.PartitionScheme scheme) {
+        maintenance = new PartitionMaintenance(() -> pool.borrow(), scheme, retentionDays, archiveDirectory,
+                this::reconcileRecordCount);
+        maintenance.start();
+    }
+
+    private synchronized void startReconciler() {
+        if (reconciler != null) return;
+
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "record-count-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileRecordCount,
+                RECONCILE_INTERVAL_MINUTES, RECONCILE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private synchronized void stopReconciler() {
+        if (reconciler == null) return;
+        reconciler.shutdownNow();
+        reconciler = null;
+    }
+
+    // Replaces the cached count with COUNT(*) plus whatever this store recorded
+    // after the query started. A write committed just before the query but
+    // recorded just after is counted twice until the next run.
+    private void reconcileRecordCount() {
+        long deltasBefore = countDeltas.get();
+
+        try (Connection connection = pool.borrow();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM received_data")) {
+            if (!rs.next()) return;
+
+            long counted = rs.getLong(1);
+            long cached = countBase + deltasBefore;
+            countBase = counted - deltasBefore;
+            if (cached != counted) {
+                Log.debug(() -> "🔢 Record count corrected from " + cached + " to " + counted);
+            }
+        } catch (SQLException e) {
+            Log.warn("⚠️ Could not count records: " + e.getMessage());
+            handleSqlError(e);
+        }
+    }
+
+    private void adjustRecordCount(long delta) {
+        countDeltas.addAndGet(delta);
+    }
+
+    private void stopMaintenance() {
+        if (maintenance != null) {
+            maintenance.stop();
+            maintenance = null;
+        }
+    }
+
+    // FULLTEXT is absent on partitioned tables and where MySQL refused to build it
+    private void detectFullText() {
+        String sql = "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'received_data' AND index_name = 'ft_data_content'";
+
+        try (Connection connection = pool.borrow();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            fullTextAvailable = rs.next() && rs.getInt(1) > 0;
+        } catch (SQLException e) {
+            fullTextAvailable = false;
+            Log.warn("⚠️ Could not verify search indexes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        healthMonitor.stop();
+        stopMaintenance();
+        stopReconciler();
+        ConnectionPool current = pool;
+        if (current != null && !current.isClosed()) {
+            isConnected = false;
+            current.close();
+            Log.info("🔌 Database disconnected.");
+        }
+    }
+
+    // Answers from the health monitor's cached state
+    @Override
+    public boolean isAvailable() {
+        ConnectionPool current = pool;
+        return isConnected && current != null && !current.isClosed() && healthMonitor.isHealthy();
+    }
+
+    private boolean probeConnection() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null || current.isClosed()) return false;
+
+        try (Connection connection = current.borrow()) {
+            return connection.isValid(2);
+        }
+    }
+
+    // Used by the health monitor to rebuild the pool after the link dropped.
+    private boolean reopenPool() {
+        if (!isConnected || jdbcUrl == null) return false;
+
+        try {
+            ConnectionPool previous = pool;
+            pool = new ConnectionPool(jdbcUrl, username, password,
+                    poolMinSize, poolMaxSize, poolIdleTimeoutMillis, poolBorrowTimeoutMillis);
+            if (previous != null) {
+                previous.close();
+            }
+            return true;
+        } catch (SQLException e) {
+            Log.warn("⚠️ Reconnect failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void handleSqlError(SQLException e) {
+        // SQLState class 08 = connection exception
+        String state = e.getSQLState();
+        if (e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException
+                || (state != null && state.startsWith("08"))) {
+            healthMonitor.reportFailure();
+        }
+    }
+
+    @Override
+    public String describe() {
+        return database + "@" + host;
+    }
+
+    @Override
+    public String getStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : "Pool: not connected\n";
+    }
+
+    @Override
+    public boolean saveReceivedData(ReceivedData data) {
+        if (hasClientMsgId(data)) {
+            // The row may be an earlier copy of this message; saveAll checks
+            return saveAll(List.of(data));
+        }
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(INSERT_SQL,
+                Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(stmt, data);
+
+            Log.trace(() -> "💾 Executing INSERT: " + data.getDataContent());
+
+            int affectedRows = stmt.executeUpdate();
+
+            if (affectedRows > 0) {
+                adjustRecordCount(affectedRows);
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        data.setId(generatedKeys.getInt(1));
+                    }
+                }
+                Log.debug(() -> "✅ Data saved to database with ID: " + data.getId());
+                return true;
+            } else {
+                Log.warn("❌ No rows affected");
+            }
+
+        } catch (SQLException e) {
+            Log.error("❌ Error saving data: " + e.getMessage(), e);
+            handleSqlError(e);
+        }
+        return false;
+    }
+
+    // A save returns after its commit, and InnoDB has logged it by then
+    @Override
+    public boolean flush() {
+        return true;
+    }
+
+    // Inserts the whole list inside a single transaction: rows without a client
+    // message id as one JDBC batch, rows with one as a second, deduplicating
+    // batch. Ids are written back to every row; a duplicate gets the id of the
+    // row that was stored first.
+    @Override
+    public boolean saveAll(List<ReceivedData> dataList) {
+        if (dataList.isEmpty()) return true;
+
+        List<ReceivedData> plainRows = new ArrayList<>(dataList.size());
+        List<ReceivedData> idRows = new ArrayList<>();
+        for (ReceivedData data : dataList) {
+            (hasClientMsgId(data) ? idRows : plainRows).add(data);
+        }
+
+        // Held until commit, so a concurrent batch sees the rows this one adds
+        boolean serialize = partitioned && !idRows.isEmpty();
+        if (serialize) {
+            dedupLock.lock();
+        }
+
+        // Returning the connection to the pool rolls back anything left uncommitted
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+
+            if (!plainRows.isEmpty()) {
+                try (PreparedStatement stmt = connection.prepareStatement(INSERT_SQL,
+                        Statement.RETURN_GENERATED_KEYS)) {
+
+                    for (ReceivedData data : plainRows) {
+                        bindInsert(stmt, data);
+                        stmt.addBatch();
+                    }
+
+                    stmt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (ReceivedData data : plainRows) {
+                            if (!generatedKeys.next()) break;
+                            data.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+            }
+
+            // Generated keys skip the duplicates, so ids are looked up afterwards.
+            // Without uk_client_msg_id, known ids and repeats within the batch
+            // are left out here instead.
+            int inserted = plainRows.size();
+            if (!idRows.isEmpty()) {
+                List<ReceivedData> newRows = idRows;
+                if (serialize) {
+                    Set<String> stored = findIds(connection, idRows).keySet();
+                    Set<String> batched = new HashSet<>();
+                    newRows = new ArrayList<>(idRows.size());
+                    for (ReceivedData data : idRows) {
+                        if (!stored.contains(data.getClientMsgId()) && batched.add(data.getClientMsgId())) {
+                            newRows.add(data);
+                        }
+                    }
+                }
+                inserted += insertWithIds(connection, newRows);
+                resolveIds(connection, idRows);
+            }
+
+            connection.commit();
+            adjustRecordCount(inserted);
+            Log.debug(() -> "✅ Batch of " + dataList.size() + " rows saved to database");
+            return true;
+
+        } catch (SQLException e) {
+            Log.error("❌ Error saving batch: " + e.getMessage());
+            handleSqlError(e);
+            return false;
+        } finally {
+            if (serialize) {
+                dedupLock.unlock();
+            }
+        }
+    }
+
+    private boolean hasClientMsgId(ReceivedData data) {
+        return data.getClientMsgId() != null;
+    }
+
+    private static void bindInsert(PreparedStatement stmt, ReceivedData data) throws SQLException {
+        stmt.setString(1, data.getDataContent());
+        stmt.setString(2, data.getSenderIp());
+        stmt.setString(3, data.getStatus() != null ? data.getStatus() : "RECEIVED");
+        stmt.setTimestamp(4, receivedAt(data));
+    }
+
+    // Whole seconds, as the column keeps them; MySQL would round the fraction
+    // and could move a row past one received a moment later
+    private static Timestamp receivedAt(ReceivedData data) {
+        LocalDateTime receivedAt = data.getReceivedAt();
+        return receivedAt != null ? Timestamp.valueOf(receivedAt.truncatedTo(ChronoUnit.SECONDS)) : null;
+    }
+
+    // Returns the number of rows actually added
+    private static int insertWithIds(Connection connection, List<ReceivedData> rows) throws SQLException {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += INSERT_WITH_ID_ROWS) {
+            List<ReceivedData> chunk = rows.subList(from, Math.min(rows.size(), from + INSERT_WITH_ID_ROWS));
+
+            StringBuilder sql = new StringBuilder(INSERT_WITH_ID_SQL);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(INSERT_WITH_ID_ROW);
+            }
+            sql.append(INSERT_WITH_ID_SUFFIX);
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (ReceivedData data : chunk) {
+                    stmt.setString(index++, data.getDataContent());
+                    stmt.setString(index++, data.getSenderIp());
+                    stmt.setString(index++, data.getStatus() != null ? data.getStatus() : "RECEIVED");
+                    stmt.setTimestamp(index++, receivedAt(data));
+                    stmt.setString(index++, data.getClientMsgId());
+                }
+                inserted += stmt.executeUpdate();
+            }
+        }
+        return inserted;
+    }
+
+    private static void resolveIds(Connection connection, List<ReceivedData> rows) throws SQLException {
+        Map<String, Integer> ids = findIds(connection, rows);
+        for (ReceivedData data : rows) {
+            Integer id = ids.get(data.getClientMsgId());
+            if (id != null) {
+                data.setId(id);
+            }
+        }
+    }
+
+    // Stored id per client message id; the oldest row if there are several
+    private static Map<String, Integer> findIds(Connection connection, List<ReceivedData> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, client_msg_id FROM received_data WHERE client_msg_id IN (");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") ORDER BY id");
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < rows.size(); i++) {
+                stmt.setString(i + 1, rows.get(i).getClientMsgId());
+            }
+
+            Map<String, Integer> ids = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.putIfAbsent(rs.getString(2), rs.getInt(1));
+                }
+            }
+            return ids;
+        }
+    }
+
+    @Override
+    public List<ReceivedData> getAllReceivedData() {
+        List<ReceivedData> dataList = new ArrayList<>();
+
+        String sql = "SELECT * FROM received_data ORDER BY received_at DESC";
+
+        try (Connection connection = pool.borrow();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                dataList.add(mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            Log.error("❌ Error fetching data: " + e.getMessage(), e);
+            handleSqlError(e);
+        }
+
+        return dataList;
+    }
+
+    // Keyset paging, newest first. Pass a null receivedAt for the first page,
+    // otherwise the (receivedAt, id) of the last row already shown.
+    // idx_received_at covers this: InnoDB secondary indexes carry the primary key.
+    @Override
+    public List<ReceivedData> getOlderPage(LocalDateTime receivedAt, int id, int limit) {
+        if (receivedAt == null) {
+            return queryPage("SELECT * FROM received_data " +
+                    "ORDER BY received_at DESC, id DESC LIMIT ?", null, 0, limit, false);
+        }
+        return queryPage("SELECT * FROM received_data " +
+                "WHERE received_at < ? OR (received_at = ? AND id < ?) " +
+                "ORDER BY received_at DESC, id DESC LIMIT ?", receivedAt, id, limit, false);
+    }
+
+    // Rows newer than (receivedAt, id), returned newest first like getOlderPage.
+    @Override
+    public List<ReceivedData> getNewerPage(LocalDateTime receivedAt, int id, int limit) {
+        return queryPage("SELECT * FROM received_data " +
+                "WHERE received_at > ? OR (received_at = ? AND id > ?) " +
+                "ORDER BY received_at ASC, id ASC LIMIT ?", receivedAt, id, limit, true);
+    }
+
+    private List<ReceivedData> queryPage(String sql, LocalDateTime receivedAt, int id,
+                                         int limit, boolean ascending) {
+        return queryPage(sql, List.of(), receivedAt, id, limit, ascending);
+    }
+
+    private List<ReceivedData> queryPage(String sql, List<Object> filterParams, LocalDateTime receivedAt,
+                                         int id, int limit, boolean ascending) {
+        List<ReceivedData> dataList = new ArrayList<>();
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+
+            int index = 1;
+            for (Object param : filterParams) {
+                stmt.setObject(index++, param);
+            }
+            if (receivedAt != null) {
+                Timestamp timestamp = Timestamp.valueOf(receivedAt);
+                stmt.setTimestamp(index++, timestamp);
+                stmt.setTimestamp(index++, timestamp);
+                stmt.setInt(index++, id);
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dataList.add(mapRow(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            Log.error("❌ Error fetching page: " + e.getMessage());
+            handleSqlError(e);
+        }
+
+        if (ascending) {
+            Collections.reverse(dataList);
+        }
+        return dataList;
+    }
+
+    // Full-history search, paged by the same (received_at, id) keyset as getOlderPage.
+    // Words go through the FULLTEXT index, IP-like tokens match sender_ip by prefix
+    // and status names match status exactly; all tokens must match.
+    @Override
+    public List<ReceivedData> searchOlderPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        List<Object> params = new ArrayList<>();
+        String condition = buildSearchCondition(query, params);
+
+        if (receivedAt == null) {
+            return queryPage("SELECT * FROM received_data WHERE " + condition +
+                    " ORDER BY received_at DESC, id DESC LIMIT ?", params, null, 0, limit, false);
+        }
+        return queryPage("SELECT * FROM received_data WHERE (" + condition + ") " +
+                "AND (received_at < ? OR (received_at = ? AND id < ?)) " +
+                "ORDER BY received_at DESC, id DESC LIMIT ?", params, receivedAt, id, limit, false);
+    }
+
+    @Override
+    public List<ReceivedData> searchNewerPage(String query, LocalDateTime receivedAt, int id, int limit) {
+        List<Object> params = new ArrayList<>();
+        String condition = buildSearchCondition(query, params);
+
+        return queryPage("SELECT * FROM received_data WHERE (" + condition + ") " +
+                "AND (received_at > ? OR (received_at = ? AND id > ?)) " +
+                "ORDER BY received_at ASC, id ASC LIMIT ?", params, receivedAt, id, limit, true);
+    }
+
+    // Number of matches, counted no further than DatabaseService.SEARCH_COUNT_CAP + 1 so a
+    // broad query stays cheap. Returns -1 when the count could not be taken.
+    @Override
+    public int estimateSearchCount(String query) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM (SELECT 1 FROM received_data WHERE " +
+                buildSearchCondition(query, params) + " LIMIT " + (DatabaseService.SEARCH_COUNT_CAP + 1) + ") matches";
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error counting search results: " + e.getMessage());
+            handleSqlError(e);
+            return -1;
+        }
+    }
+
+    private String buildSearchCondition(String query, List<Object> params) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        List<String> conditions = new ArrayList<>();
+        StringBuilder fullText = new StringBuilder();
+
+        for (String status : parsed.statuses) {
+            conditions.add("status = ?");
+            params.add(status);
+        }
+        for (String prefix : parsed.ipPrefixes) {
+            conditions.add("sender_ip LIKE ?");
+            params.add(escapeLike(prefix) + "%");
+        }
+        for (String token : parsed.words) {
+            // Only letters and digits reach MATCH; operators and punctuation
+            // would change the meaning of the boolean query. FULLTEXT indexes
+            // "foo-bar" as two words, so each part becomes its own term.
+            String[] parts = token.split("[^\\p{L}\\p{N}_]+");
+            int indexed = 0;
+            if (fullTextAvailable) {
+                for (String part : parts) {
+                    if (part.length() < FULLTEXT_MIN_TOKEN) continue;
+                    fullText.append('+').append(part).append("* ");
+                    indexed++;
+                }
+            }
+
+            // Short words, and tokens the terms above only approximate, are
+            // matched exactly like the in-memory search does
+            if (indexed == 0 || parts.length > 1) {
+                conditions.add("data_content LIKE ?");
+                params.add("%" + escapeLike(token) + "%");
+            }
+        }
+
+        if (fullText.length() > 0) {
+            // Keep the FULLTEXT predicate first so MySQL drives the query from that index
+            conditions.add(0, "MATCH(data_content) AGAINST (? IN BOOLEAN MODE)");
+            params.add(0, fullText.toString().trim());
+        }
+
+        return conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private ReceivedData mapRow(ResultSet rs) throws SQLException {
+        ReceivedData data = new ReceivedData();
+        data.setId(rs.getInt("id"));
+        data.setDataContent(rs.getString("data_content"));
+        data.setSenderIp(rs.getString("sender_ip"));
+
+        Timestamp timestamp = rs.getTimestamp("received_at");
+        if (timestamp != null) {
+            data.setReceivedAt(timestamp.toLocalDateTime());
+        }
+
+        data.setStatus(rs.getString("status"));
+        return data;
+    }
+
+    @Override
+    public boolean deleteData(int id) {
+        String sql = "DELETE FROM received_data WHERE id = ?";
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            if (stmt.executeUpdate() == 0) return false;
+            adjustRecordCount(-1);
+            return true;
+        } catch (SQLException e) {
+            Log.error("❌ Error deleting record " + id + ": " + e.getMessage(), e);
+            handleSqlError(e);
+            return false;
+        }
+    }
+
+    // TRUNCATE recreates the table (every partition, if any) instead of deleting
+    // row by row, so it takes no row locks and leaves no bloat behind. It also
+    // restarts AUTO_INCREMENT.
+    @Override
+    public boolean clearAllData() {
+        String sql = "TRUNCATE TABLE received_data";
+
+        try (Connection connection = pool.borrow();
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(sql);
+            countBase = -countDeltas.get();
+            return true;
+        } catch (SQLException e) {
+            Log.error("❌ Error clearing data: " + e.getMessage(), e);
+            handleSqlError(e);
+            return false;
+        }
+    }
+
+    // The cached count; no query
+    @Override
+    public int getRecordCount() {
+        return (int) Math.max(0, countBase + countDeltas.get());
+    }
+}
@@ -0,0 +1,455 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Non-blocking ingest engine: one acceptor loop plus a small fixed set of
+// event loops, each multiplexing many client channels over its own Selector.
+// A connection that IngestAdmission holds back has OP_READ switched off until
+// it may be read again, so the loop never blocks on a slow consumer. The
+// same happens to a client that stops reading its replies: once too many
+// bytes are queued for it, the server stops reading from it until the queue
+// drains, which is the backpressure a blocking socket gives for free.
+class NioIngestServer {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    // Queued reply bytes per connection that stop reads, and the level at which they resume
+    private static final long PENDING_WRITE_HIGH_WATER = 256 * 1024;
+    private static final long PENDING_WRITE_LOW_WATER = 64 * 1024;
+
+    private final int eventLoopCount;
+    private final ClientConnection.MessageHandler messageHandler;
+    private final Executor ackExecutor;
+    private final IngestAdmission admission;
+    private final Consumer<String> onClientConnected;
+    private final Consumer<String> onClientDisconnected;
+
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private EventLoop[] eventLoops;
+    private Thread acceptThread;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private volatile boolean running = false;
+
+    // messageHandler runs on the event loop for every decoded message and
+    // replies through the connection
+    NioIngestServer(int eventLoopCount,
+                    ClientConnection.MessageHandler messageHandler,
+                    Executor ackExecutor,
+                    IngestAdmission admission,
+                    Consumer<String> onClientConnected,
+                    Consumer<String> onClientDisconnected) {
+        this.eventLoopCount = Math.max(1, eventLoopCount);
+        this.messageHandler = messageHandler;
+        this.ackExecutor = ackExecutor;
+        this.admission = admission;
+        this.onClientConnected = onClientConnected;
+        this.onClientDisconnected = onClientDisconnected;
+    }
+
+    ServerSocket start(InetSocketAddress bindAddress, int backlog) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(bindAddress, backlog);
+            serverChannel.configureBlocking(false);
+
+            acceptSelector = Selector.open();
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+            eventLoops = new EventLoop[eventLoopCount];
+            for (int i = 0; i < eventLoopCount; i++) {
+                eventLoops[i] = new EventLoop(i);
+            }
+        } catch (IOException e) {
+            closeQuietly(acceptSelector);
+            closeQuietly(serverChannel);
+            throw e;
+        }
+
+        running = true;
+        for (EventLoop loop : eventLoops) {
+            loop.thread.start();
+        }
+
+        acceptThread = new Thread(this::acceptLoop, "nio-acceptor");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        return serverChannel.socket();
+    }
+
+    void stop() {
+        running = false;
+
+        if (acceptSelector != null) {
+            acceptSelector.wakeup();
+        }
+        if (eventLoops != null) {
+            for (EventLoop loop : eventLoops) {
+                loop.selector.wakeup();
+            }
+        }
+
+        joinQuietly(acceptThread);
+        if (eventLoops != null) {
+            for (EventLoop loop : eventLoops) {
+                joinQuietly(loop.thread);
+            }
+        }
+
+        closeQuietly(acceptSelector);
+        closeQuietly(serverChannel);
+    }
+
+    int getConnectionCount() {
+        int count = 0;
+        if (eventLoops != null) {
+            for (EventLoop loop : eventLoops) {
+                count += loop.connectionCount;
+            }
+        }
+        return count;
+    }
+
+    int getEventLoopCount() {
+        return eventLoopCount;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                acceptSelector.select();
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (key.isValid() && key.isAcceptable()) {
+                        SocketChannel channel;
+                        while ((channel = serverChannel.accept()) != null) {
+                            if (!admission.tryOpenConnection()) {
+                                // Never throws, so a peer that already reset is still closed
+                                String peer = remoteAddress(channel);
+                                closeQuietly(channel);
+                                Log.warn("🚫 Refused " + peer + ": too many clients");
+                                continue;
+                            }
+                            try {
+                                channel.configureBlocking(false);
+                                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                            } catch (IOException e) {
+                                // Reset before it could be set up; keep accepting the rest
+                                closeQuietly(channel);
+                                admission.connectionClosed();
+                                continue;
+                            }
+                            EventLoop loop = eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)];
+                            loop.register(channel);
+                        }
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    Log.error("NIO accept error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        // Connections that were given replies from other threads (v2 acks)
+        private final Queue<Connection> pendingFlushes = new ConcurrentLinkedQueue<>();
+        // Connections with OP_READ switched off by admission control; loop thread only
+        private final List<Connection> pausedReads = new ArrayList<>();
+
+        // Shared by every channel on this loop; each connection's decoder copies out
+        // what it needs, so nothing refers to it after read() returns.
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        private volatile int connectionCount = 0;
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-event-loop-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void register(SocketChannel channel) {
+            pendingRegistrations.add(channel);
+            selector.wakeup();
+        }
+
+        void requestFlush(Connection connection) {
+            pendingFlushes.add(connection);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select(resumeTimeoutMillis());
+                    registerPending();
+                    flushPending();
+                    resumeReads();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        if (!key.isValid()) continue;
+
+                        try {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        } catch (IOException e) {
+                            close(key);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    Log.error("NIO event loop error: " + e.getMessage());
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    close(key);
+                }
+                SocketChannel pending;
+                while ((pending = pendingRegistrations.poll()) != null) {
+                    closeQuietly(pending);
+                    admission.connectionClosed();
+                }
+                closeQuietly(selector);
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pendingRegistrations.poll()) != null) {
+                try {
+                    String clientIp = ((InetSocketAddress) channel.getRemoteAddress()).getAddress().getHostAddress();
+                    Connection connection = new Connection(clientIp, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connectionCount++;
+                    onClientConnected.accept(clientIp);
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    admission.connectionClosed();
+                }
+            }
+        }
+
+        private void flushPending() {
+            Connection connection;
+            while ((connection = pendingFlushes.poll()) != null) {
+                SelectionKey key = connection.key;
+                if (key == null || !key.isValid()) continue;
+                try {
+                    write(key);
+                } catch (IOException e) {
+                    close(key);
+                }
+            }
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+
+            // Sets connection.readPaused along with the delay
+            long delay = admission.readDelayNanos(connection);
+            if (delay > 0) {
+                updateReadInterest(key, connection);
+                connection.resumeAtNanos = System.nanoTime() + delay;
+                pausedReads.add(connection);
+                return;
+            }
+
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                close(key);
+                return;
+            }
+            readBuffer.flip();
+
+            boolean valid = connection.receive(readBuffer);
+
+            if (connection.hasPendingWrites()) {
+                write(key);
+            }
+            if (connection.pendingBytes.get() > PENDING_WRITE_HIGH_WATER && !connection.writeBlocked) {
+                // The client is not reading its replies; stop reading its requests
+                connection.writeBlocked = true;
+                updateReadInterest(key, connection);
+            }
+            if (!valid) {
+                // The error reply was written above if the socket could take it
+                close(key);
+            }
+        }
+
+        // How long select() may block before a paused connection is due; 0 blocks indefinitely
+        private long resumeTimeoutMillis() {
+            if (pausedReads.isEmpty()) return 0;
+
+            long earliest = Long.MAX_VALUE;
+            for (Connection connection : pausedReads) {
+                earliest = Math.min(earliest, connection.resumeAtNanos);
+            }
+            long millis = (earliest - System.nanoTime() + 999_999) / 1_000_000;
+            return Math.max(1, millis);
+        }
+
+        private void resumeReads() {
+            long now = System.nanoTime();
+            Iterator<Connection> paused = pausedReads.iterator();
+            while (paused.hasNext()) {
+                Connection connection = paused.next();
+                SelectionKey key = connection.key;
+                if (key == null || !key.isValid()) {
+                    paused.remove();
+                    continue;
+                }
+                if (now < connection.resumeAtNanos) continue;
+
+                long delay = admission.readDelayNanos(connection);
+                if (delay > 0) {
+                    connection.resumeAtNanos = now + delay;
+                } else {
+                    updateReadInterest(key, connection);
+                    paused.remove();
+                }
+            }
+        }
+
+        private void write(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+
+            Queue<ByteBuffer> writes = connection.pendingWrites;
+            try {
+                while (!writes.isEmpty()) {
+                    ByteBuffer buffer = writes.peek();
+                    connection.pendingBytes.addAndGet(-channel.write(buffer));
+                    if (buffer.hasRemaining()) {
+                        // Socket send buffer is full; wait for OP_WRITE
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    writes.poll();
+                }
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            } finally {
+                if (connection.writeBlocked && connection.pendingBytes.get() < PENDING_WRITE_LOW_WATER) {
+                    connection.writeBlocked = false;
+                    updateReadInterest(key, connection);
+                }
+            }
+        }
+
+        // OP_READ is on only while neither admission control nor unread replies hold the connection back
+        private void updateReadInterest(SelectionKey key, Connection connection) {
+            if (connection.readPaused || connection.writeBlocked) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            } else {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+
+        private void close(SelectionKey key) {
+            Object attachment = key.attachment();
+            key.cancel();
+            closeQuietly(key.channel());
+            if (attachment instanceof Connection) {
+                key.attach(null);
+                connectionCount--;
+                admission.connectionClosed();
+                onClientDisconnected.accept(((Connection) attachment).clientIp);
+            }
+        }
+    }
+
+    private final class Connection extends ClientConnection {
+
+        private final EventLoop loop;
+        private SelectionKey key;
+        private long resumeAtNanos;
+        // Loop thread only; readPaused is inherited and kept by IngestAdmission
+        private boolean writeBlocked;
+        // Written only by the loop thread, filled from any thread
+        private final Queue<ByteBuffer> pendingWrites = new ConcurrentLinkedQueue<>();
+        private final AtomicLong pendingBytes = new AtomicLong();
+
+        Connection(String clientIp, EventLoop loop) {
+            super(clientIp, ackExecutor, messageHandler);
+            this.loop = loop;
+        }
+
+        @Override
+        void sendBytes(byte[] bytes) {
+            pendingBytes.addAndGet(bytes.length);
+            pendingWrites.add(ByteBuffer.wrap(bytes));
+            // Replies from the loop itself are flushed at the end of read()
+            if (Thread.currentThread() != loop.thread) {
+                loop.requestFlush(this);
+            }
+        }
+
+        boolean hasPendingWrites() {
+            return !pendingWrites.isEmpty();
+        }
+    }
+
+    private static String remoteAddress(SocketChannel channel) {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return "unknown client";
+        }
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void joinQuietly(Thread thread) {
+        if (thread == null) return;
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Time partitioning and retention for the MySQL received_data table.
+//
+// A partitioned table is split by RANGE on UNIX_TIMESTAMP(received_at), one
+// partition per UTC day or month, plus a catch-all "pmax". Every hour the job
+// splits pmax so the next few periods exist before rows arrive, then expires
+// old data: each partition that lies entirely before the retention cutoff is
+// exported to a gzip'd CSV file (when an archive directory is set) and dropped.
+// That is a metadata change, so a purge neither scans rows nor holds locks
+// that ingest would wait on. Unpartitioned tables get the same retention
+// through short DELETE batches instead.
+//
+// MySQL puts two limits on partitioned InnoDB tables: every unique key must
+// contain received_at, and FULLTEXT indexes are not supported. Partitioning
+// therefore drops uk_client_msg_id and ft_data_content. MySqlMessageStore
+// then deduplicates client message ids itself and searches text with LIKE.
+final class PartitionMaintenance {
+
+    interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private static final String MAX_PARTITION = "pmax";
+    // Holds whatever predates the first period when a table is converted
+    private static final String OLDEST_PARTITION = "p0";
+    // Partitions created ahead of time
+    private static final int PERIODS_AHEAD = 3;
+    // Older history is folded into a single partition when converting a table
+    private static final int MAX_INITIAL_PARTITIONS = 400;
+    private static final int DELETE_BATCH_SIZE = 5_000;
+    private static final long INTERVAL_MINUTES = 60;
+
+    private static final DateTimeFormatter DAY_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter ARCHIVE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final ConnectionSource connections;
+    private final DatabaseService.PartitionScheme scheme;
+    private final int retentionDays;
+    private final File archiveDirectory;
+    // Told whenever rows were removed, so cached counts can be corrected
+    private final Runnable onPurged;
+
+    private ScheduledExecutorService scheduler;
+
+    PartitionMaintenance(ConnectionSource connections, DatabaseService.PartitionScheme scheme,
+                         int retentionDays, File archiveDirectory, Runnable onPurged) {
+        this.connections = connections;
+        this.scheme = scheme;
+        this.retentionDays = retentionDays;
+        this.archiveDirectory = archiveDirectory;
+        this.onPurged = onPurged;
+    }
+
+    // NONE for an unpartitioned table, otherwise the scheme its partitions were made with
+    static DatabaseService.PartitionScheme detectScheme(Connection connection) throws SQLException {
+        String sql = "SELECT partition_name FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = 'received_data' " +
+                "AND partition_name IS NOT NULL AND partition_name NOT IN ('" + OLDEST_PARTITION + "', '" +
+                MAX_PARTITION + "') LIMIT 1";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) return DatabaseService.PartitionScheme.NONE;
+            // p20261017 or p202610
+            String name = rs.getString(1);
+            return name.length() == 7 ? DatabaseService.PartitionScheme.MONTHLY : DatabaseService.PartitionScheme.DAILY;
+        }
+    }
+
+    // Rebuilds an unpartitioned table as a partitioned one. This copies the
+    // table once, so it is only done when partitioning is first switched on.
+    static void partitionTable(Connection connection, DatabaseService.PartitionScheme scheme) throws SQLException {
+        LocalDate first = currentPeriod(scheme);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(received_at) FROM received_data")) {
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                first = periodStart(scheme, rs.getTimestamp(1).toInstant().atZone(ZoneOffset.UTC).toLocalDate());
+            }
+        }
+
+        LocalDate last = advance(scheme, currentPeriod(scheme), PERIODS_AHEAD);
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = first; !start.isAfter(last); start = advance(scheme, start, 1)) {
+            starts.add(start);
+        }
+        if (starts.size() > MAX_INITIAL_PARTITIONS) {
+            starts = starts.subList(starts.size() - MAX_INITIAL_PARTITIONS, starts.size());
+        }
+
+        StringBuilder partitions = new StringBuilder();
+        // Everything before the first period, so no existing row is left out
+        partitions.append("PARTITION ").append(OLDEST_PARTITION).append(" VALUES LESS THAN (").append(epoch(starts.get(0))).append("), ");
+        for (LocalDate start : starts) {
+            partitions.append(definition(scheme, start)).append(", ");
+        }
+        partitions.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN MAXVALUE");
+
+        try (Statement stmt = connection.createStatement()) {
+            if (indexExists(stmt, "ft_data_content")) {
+                stmt.execute("ALTER TABLE received_data DROP INDEX ft_data_content");
+            }
+            if (indexExists(stmt, "uk_client_msg_id")) {
+                stmt.execute("ALTER TABLE received_data DROP INDEX uk_client_msg_id");
+            }
+            stmt.execute("ALTER TABLE received_data " +
+                    "MODIFY received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "DROP PRIMARY KEY, ADD PRIMARY KEY (id, received_at)" +
+                    (indexExists(stmt, "idx_client_msg_id") ? "" : ", ADD INDEX idx_client_msg_id (client_msg_id)"));
+            stmt.execute("ALTER TABLE received_data PARTITION BY RANGE (UNIX_TIMESTAMP(received_at)) (" +
+                    partitions + ")");
+        }
+        Log.info("✅ Partitioned received_data " + scheme.name().toLowerCase()
+                + " (" + (starts.size() + 2) + " partitions)");
+    }
+
+    private static boolean indexExists(Statement stmt, String index) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'received_data' AND index_name = '" + index + "'")) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    synchronized void start() {
+        if (scheduler != null) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    void runOnce() {
+        try (Connection connection = connections.get()) {
+            if (scheme != DatabaseService.PartitionScheme.NONE) {
+                addFuturePartitions(connection);
+            }
+            if (retentionDays > 0) {
+                LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minusDays(retentionDays);
+                if (scheme != DatabaseService.PartitionScheme.NONE) {
+                    dropExpiredPartitions(connection, cutoff);
+                } else {
+                    deleteExpiredRows(connection, cutoff);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            Log.error("❌ Partition maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void addFuturePartitions(Connection connection) throws SQLException {
+        long highest = 0;
+        for (Partition partition : listPartitions(connection)) {
+            highest = Math.max(highest, partition.upperBound);
+        }
+
+        LocalDate last = advance(scheme, currentPeriod(scheme), PERIODS_AHEAD);
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate start = currentPeriod(scheme); !start.isAfter(last); start = advance(scheme, start, 1)) {
+            if (epoch(advance(scheme, start, 1)) > highest) {
+                definitions.add(definition(scheme, start));
+            }
+        }
+        if (definitions.isEmpty()) return;
+
+        // pmax only holds rows from beyond the last period, normally none, so this is cheap
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE received_data REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" +
+                    String.join(", ", definitions) + ", PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        }
+        Log.info("🗓️ Added " + definitions.size() + " received_data partitions");
+    }
+
+    private void dropExpiredPartitions(Connection connection, LocalDateTime cutoff) throws SQLException, IOException {
+        long cutoffEpoch = cutoff.toEpochSecond(ZoneOffset.UTC);
+        for (Partition partition : listPartitions(connection)) {
+            if (partition.upperBound == Long.MAX_VALUE || partition.upperBound > cutoffEpoch) continue;
+
+            if (archiveDirectory != null) {
+                Archive archive = archive(connection, "SELECT id, data_content, sender_ip, received_at, status, client_msg_id " +
+                        "FROM received_data PARTITION (" + partition.name + ")", "received_data-" + partition.name);
+                Log.info("📦 Archived " + archive.rows + " rows of partition " + partition.name);
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ALTER TABLE received_data DROP PARTITION " + partition.name);
+            }
+            Log.info("🧹 Dropped partition " + partition.name);
+            onPurged.run();
+        }
+    }
+
+    // cutoff is UTC. Bound as an instant, it goes through the same conversion
+    // as the timestamps the stores write, whatever the JVM's zone.
+    // With archiving on, only rows up to the highest archived id are deleted:
+    // an old row that arrives after the export, e.g. from a journal replay,
+    // waits for the next run instead of being deleted unarchived.
+    private void deleteExpiredRows(Connection connection, LocalDateTime cutoff) throws SQLException, IOException {
+        Timestamp before = Timestamp.from(cutoff.toInstant(ZoneOffset.UTC));
+        long maxId = Long.MAX_VALUE;
+        if (archiveDirectory != null) {
+            // Runs hourly, so the name carries the full cutoff
+            Archive archive = archive(connection, "SELECT id, data_content, sender_ip, received_at, status, client_msg_id " +
+                    "FROM received_data WHERE received_at < ?",
+                    "received_data-before-" + ARCHIVE_STAMP.format(cutoff), before);
+            if (archive.rows == 0) return;
+            maxId = archive.maxId;
+        }
+
+        long deleted = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM received_data WHERE id <= ? AND received_at < ? LIMIT " + DELETE_BATCH_SIZE)) {
+            stmt.setLong(1, maxId);
+            stmt.setTimestamp(2, before);
+            int batch;
+            do {
+                batch = stmt.executeUpdate();
+                deleted += batch;
+            } while (batch == DELETE_BATCH_SIZE);
+        }
+        if (deleted > 0) {
+            Log.info("🧹 Deleted " + deleted + " rows older than " + cutoff.toLocalDate());
+            onPurged.run();
+        }
+    }
+
+    // Streams the query into <name>.csv.gz; the file only appears once complete
+    private Archive archive(Connection connection, String sql, String name, Object... params) throws SQLException, IOException {
+        if (!archiveDirectory.isDirectory() && !archiveDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + archiveDirectory);
+        }
+        File target = new File(archiveDirectory, name + ".csv.gz");
+        File partial = new File(archiveDirectory, name + ".csv.gz.tmp");
+        // renameTo would replace it on Unix and fail on Windows
+        if (target.exists()) {
+            throw new IOException(target + " already exists");
+        }
+
+        long rows = 0;
+        long maxId = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            // Connector/J streams row by row instead of buffering the partition
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery();
+                 Writer out = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(new FileOutputStream(partial)), StandardCharsets.UTF_8))) {
+                out.write("id,data_content,sender_ip,received_at,status,client_msg_id\n");
+                while (rs.next()) {
+                    maxId = Math.max(maxId, rs.getLong(1));
+                    out.write(rs.getInt(1) + "," + csv(rs.getString(2)) + "," + csv(rs.getString(3)) + ","
+                            + csv(String.valueOf(rs.getTimestamp(4))) + "," + csv(rs.getString(5)) + ","
+                            + csv(rs.getString(6)) + "\n");
+                    rows++;
+                }
+            }
+        }
+
+        if (!partial.renameTo(target)) {
+            throw new IOException("Cannot move " + partial + " to " + target);
+        }
+        return new Archive(rows, maxId);
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static List<Partition> listPartitions(Connection connection) throws SQLException {
+        String sql = "SELECT partition_name, partition_description FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = 'received_data' AND partition_name IS NOT NULL " +
+                "ORDER BY partition_ordinal_position";
+
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String bound = rs.getString(2);
+                partitions.add(new Partition(rs.getString(1),
+                        "MAXVALUE".equalsIgnoreCase(bound) ? Long.MAX_VALUE : Long.parseLong(bound)));
+            }
+        }
+        return partitions;
+    }
+
+    private static String definition(DatabaseService.PartitionScheme scheme, LocalDate start) {
+        String name = (scheme == DatabaseService.PartitionScheme.MONTHLY ? MONTH_NAME : DAY_NAME).format(start);
+        return "PARTITION " + name + " VALUES LESS THAN (" + epoch(advance(scheme, start, 1)) + ")";
+    }
+
+    private static LocalDate currentPeriod(DatabaseService.PartitionScheme scheme) {
+        return periodStart(scheme, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    private static LocalDate periodStart(DatabaseService.PartitionScheme scheme, LocalDate date) {
+        return scheme == DatabaseService.PartitionScheme.MONTHLY ? date.withDayOfMonth(1) : date;
+    }
+
+    private static LocalDate advance(DatabaseService.PartitionScheme scheme, LocalDate start, int periods) {
+        return scheme == DatabaseService.PartitionScheme.MONTHLY ? start.plusMonths(periods) : start.plusDays(periods);
+    }
+
+    private static long epoch(LocalDate date) {
+        return date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Partition {
+        final String name;
+        // UNIX_TIMESTAMP the partition ends before; Long.MAX_VALUE for pmax
+        final long upperBound;
+
+        Partition(String name, long upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+
+    private static final class Archive {
+        final long rows;
+        // Highest id written; 0 when empty
+        final long maxId;
+
+        Archive(long rows, long maxId) {
+            this.rows = rows;
+            this.maxId = maxId;
+        }
+    }
+}
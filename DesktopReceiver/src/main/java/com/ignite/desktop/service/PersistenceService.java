@@ -0,0 +1,362 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Write-behind stage between SocketServerService and DatabaseService.
+// Received messages are queued here and a single writer thread persists them,
+// so neither the socket handlers nor the JavaFX thread wait on JDBC.
+public class PersistenceService {
+
+    private static PersistenceService instance;
+
+    private final DatabaseService databaseService;
+
+    private int queueCapacity = 10_000;
+    private BlockingQueue<PendingWrite> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+    // Flush policy: write when this many rows are waiting, or when the oldest
+    // row in the batch has waited this long, whichever comes first
+    private volatile int maxBatchSize = 500;
+    private volatile long maxBatchDelayMillis = 50;
+
+    private Thread writerThread;
+    private volatile boolean isRunning = false;
+
+    private volatile Consumer<ReceivedData> onPersistedCallback;
+
+    // Metrics
+    private final AtomicLong savedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private final AtomicLong totalWrites = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+    private volatile long lastWriteNanos = 0;
+    private volatile long lastQueueWaitNanos = 0;
+    private volatile int peakQueueDepth = 0;
+
+    // data is null for a marker that only runs its completion
+    private static final class PendingWrite {
+        final ReceivedData data;
+        final Consumer<ReceivedData> onComplete;
+        final long enqueuedAt;
+
+        PendingWrite(ReceivedData data, Consumer<ReceivedData> onComplete) {
+            this.data = data;
+            this.onComplete = onComplete;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    private PersistenceService() {
+        databaseService = DatabaseService.getInstance();
+    }
+
+    public static synchronized PersistenceService getInstance() {
+        if (instance == null) {
+            instance = new PersistenceService();
+        }
+        return instance;
+    }
+
+    // Only applies while the writer is stopped.
+    public synchronized void setQueueCapacity(int queueCapacity) {
+        if (isRunning || !awaitPreviousWriter()) return;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+    }
+
+    public void setFlushPolicy(int maxBatchSize, long maxBatchDelayMillis) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchDelayMillis = Math.max(0, maxBatchDelayMillis);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxBatchDelayMillis() {
+        return maxBatchDelayMillis;
+    }
+
+    public void setOnPersistedCallback(Consumer<ReceivedData> callback) {
+        this.onPersistedCallback = callback;
+    }
+
+    public synchronized void start() {
+        if (isRunning || !awaitPreviousWriter()) return;
+
+        isRunning = true;
+        writerThread = new Thread(this::writeLoop, "persistence-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        Log.info("💾 Persistence writer started (queue capacity " + queueCapacity + ")");
+    }
+
+    // A writer can still be draining after stop() gave up on it. A second one on
+    // the same queue would break the enqueue-order completion that cumulative
+    // acks rely on, and swapping the queue would strand its rows, so both wait.
+    // False if interrupted first.
+    private boolean awaitPreviousWriter() {
+        Thread previous = writerThread;
+        if (previous == null || !previous.isAlive()) return true;
+
+        Log.info("💾 Waiting for the previous persistence writer to drain " + queue.size() + " rows");
+        try {
+            previous.join();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.warn("⚠️ Interrupted while the previous persistence writer drained");
+            return false;
+        }
+    }
+
+    // Stops accepting work and lets the writer drain what is already queued.
+    // Gives up waiting after a few seconds; the writer then finishes on its own.
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!isRunning) return;
+            isRunning = false;
+            thread = writerThread;
+        }
+
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            Log.warn("⚠️ Persistence writer still draining " + queue.size() + " rows");
+        } else {
+            Log.info("💾 Persistence writer stopped");
+        }
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    // Never blocks; returns false and marks the data ERROR when the queue is full.
+    public boolean enqueue(ReceivedData data) {
+        return enqueue(data, null);
+    }
+
+    // onComplete runs on the writer thread once the row has its final status,
+    // before the persisted callback. Queued rows complete in enqueue order.
+    // A rejected row never reaches onComplete; the caller answers the sender itself.
+    public boolean enqueue(ReceivedData data, Consumer<ReceivedData> onComplete) {
+        if (!isRunning || !queue.offer(new PendingWrite(data, onComplete))) {
+            rejectedCount.incrementAndGet();
+            data.setStatus("ERROR");
+            notifyPersisted(data);
+            return false;
+        }
+
+        int depth = queue.size();
+        if (depth > peakQueueDepth) {
+            peakQueueDepth = depth;
+        }
+        return true;
+    }
+
+    // Runs action on the writer thread once everything queued before it has
+    // completed, without writing anything. Returns false if the queue is full.
+    public boolean enqueueMarker(Runnable action) {
+        return isRunning && queue.offer(new PendingWrite(null, ignored -> action.run()));
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+
+        while (isRunning || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void fillBatch(List<PendingWrite> batch) throws InterruptedException {
+        int limit = maxBatchSize;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+
+        while (batch.size() < limit) {
+            queue.drainTo(batch, limit - batch.size());
+            if (batch.size() >= limit) break;
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        lastQueueWaitNanos = start - batch.get(0).enqueuedAt;
+
+        List<ReceivedData> dataList = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            if (pending.data != null) {
+                dataList.add(pending.data);
+            }
+        }
+        if (dataList.isEmpty()) {
+            for (PendingWrite pending : batch) {
+                complete(null, pending.onComplete);
+            }
+            return;
+        }
+
+        try {
+            if (!databaseService.isConnected()) {
+                markAll(dataList, "NOT_SAVED");
+            } else if (databaseService.saveAll(dataList)) {
+                markAll(dataList, "SAVED");
+            } else {
+                // Isolate the bad row(s) instead of failing the whole batch
+                for (ReceivedData data : dataList) {
+                    markAll(List.of(data), databaseService.saveReceivedData(data) ? "SAVED" : failedStatus());
+                }
+            }
+        } catch (Exception e) {
+            Log.error("❌ Persistence error: " + e.getMessage());
+            markAll(dataList, failedStatus());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastWriteNanos = elapsed;
+        totalWriteNanos.addAndGet(elapsed);
+        totalWrites.incrementAndGet();
+        lastBatchSize = dataList.size();
+
+        for (PendingWrite pending : batch) {
+            complete(pending.data, pending.onComplete);
+            if (pending.data != null) {
+                notifyPersisted(pending.data);
+            }
+        }
+    }
+
+    private static void complete(ReceivedData data, Consumer<ReceivedData> onComplete) {
+        if (onComplete == null) return;
+        try {
+            onComplete.accept(data);
+        } catch (Exception e) {
+            Log.error("❌ Completion callback error: " + e.getMessage());
+        }
+    }
+
+    // NOT_SAVED when the database went away meanwhile, so a retry may succeed;
+    // ERROR when it is still there and refused the row itself
+    private String failedStatus() {
+        return databaseService.isConnected() ? "ERROR" : "NOT_SAVED";
+    }
+
+    private void markAll(List<ReceivedData> dataList, String status) {
+        for (ReceivedData data : dataList) {
+            data.setStatus(status);
+        }
+        if ("SAVED".equals(status)) {
+            savedCount.addAndGet(dataList.size());
+        } else {
+            failedCount.addAndGet(dataList.size());
+        }
+    }
+
+    private void notifyPersisted(ReceivedData data) {
+        Consumer<ReceivedData> callback = onPersistedCallback;
+        if (callback != null) {
+            try {
+                callback.accept(data);
+            } catch (Exception e) {
+                Log.error("❌ Persisted callback error: " + e.getMessage());
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public double getLastWriteLatencyMillis() {
+        return lastWriteNanos / 1_000_000.0;
+    }
+
+    public double getAverageWriteLatencyMillis() {
+        long writes = totalWrites.get();
+        return writes == 0 ? 0 : totalWriteNanos.get() / 1_000_000.0 / writes;
+    }
+
+    public long getBatchCount() {
+        return totalWrites.get();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public double getLastQueueWaitMillis() {
+        return lastQueueWaitNanos / 1_000_000.0;
+    }
+
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("Writer: ").append(isRunning ? "Running" : "Stopped").append("\n");
+        stats.append("Queue Depth: ").append(getQueueDepth()).append(" / ").append(queueCapacity)
+                .append(" (peak ").append(peakQueueDepth).append(")\n");
+        stats.append("Saved: ").append(savedCount.get())
+                .append(", Failed: ").append(failedCount.get())
+                .append(", Rejected: ").append(rejectedCount.get()).append("\n");
+        stats.append("Batches: ").append(totalWrites.get())
+                .append(" (last ").append(lastBatchSize).append(" rows, max ").append(maxBatchSize)
+                .append(" rows / ").append(maxBatchDelayMillis).append(" ms)\n");
+        stats.append(String.format("Write Latency: last %.2f ms, avg %.2f ms per batch%n",
+                getLastWriteLatencyMillis(), getAverageWriteLatencyMillis()));
+        stats.append(String.format("Queue Wait: last %.2f ms%n", getLastQueueWaitMillis()));
+        return stats.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ignite.desktop.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU of client message ids that are known to be in the database.
+// An exact set rather than a Bloom filter: a false positive would ACK a
+// message that was never stored. Ids are only added after a successful save,
+// so a miss just means the database's unique index does the deduplication.
+final class RecentMessageIds {
+
+    private final int capacity;
+    private final LinkedHashMap<String, Boolean> ids;
+
+    RecentMessageIds(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        // Access order, so a client that keeps resending keeps its ids warm
+        this.ids = new LinkedHashMap<>(Math.min(this.capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RecentMessageIds.this.capacity;
+            }
+        };
+    }
+
+    synchronized boolean contains(String id) {
+        return ids.get(id) != null;
+    }
+
+    synchronized void add(String id) {
+        ids.put(id, Boolean.TRUE);
+    }
+
+    synchronized void clear() {
+        ids.clear();
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,243 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Versioned schema for the MySQL store. Each migration is a script under
+// /com/ignite/desktop/migrations, applied once and in order at connect time
+// and recorded in schema_version together with a SHA-256 of its text. A
+// recorded script that no longer matches its checksum stops the connect, as
+// does a database migrated by a newer build, so no two stations end up on
+// different schemas without anyone noticing.
+//
+// MySQL commits DDL implicitly, so a script is not atomic as a whole. Each
+// one therefore ends in a single ALTER, and everything before it can safely
+// run twice.
+final class SchemaMigrator {
+
+    private static final String RESOURCE_DIR = "/com/ignite/desktop/migrations/";
+
+    // Append only; never edit a script once it has shipped
+    private static final String[][] MIGRATIONS = {
+            {"1", "create_received_data"},
+            {"2", "compact_status"},
+            {"3", "data_content_text"}
+    };
+
+    // Serialises stations that share one database
+    private static final String LOCK_NAME = "ignite_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // Runs whatever is pending and returns the resulting schema version
+    int migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY, " +
+                    "description VARCHAR(200) NOT NULL, " +
+                    "checksum CHAR(64) NOT NULL, " +
+                    "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "execution_ms INT NOT NULL)");
+
+            try (ResultSet rs = stmt.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', " + LOCK_TIMEOUT_SECONDS + ")")) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another station to finish migrating the schema");
+                }
+            }
+            try {
+                return migrateLocked(connection);
+            } finally {
+                stmt.executeQuery("SELECT RELEASE_LOCK('" + LOCK_NAME + "')").close();
+            }
+        }
+    }
+
+    private int migrateLocked(Connection connection) throws SQLException {
+        Map<Integer, String> applied = loadApplied(connection);
+
+        int latest = 0;
+        for (String[] migration : MIGRATIONS) {
+            int version = Integer.parseInt(migration[0]);
+            String script = load(migration);
+            String checksum = sha256(script);
+            latest = version;
+
+            String recorded = applied.remove(version);
+            if (recorded != null) {
+                if (!recorded.equals(checksum)) {
+                    throw new SQLException("Migration V" + version + " (" + migration[1] + ") was changed after it was applied");
+                }
+                continue;
+            }
+
+            long start = System.currentTimeMillis();
+            if (version == 1 && tableExists(connection, "received_data")) {
+                // Created by a build that predates schema_version
+                baseline(connection);
+                Log.info("✅ Schema baselined at V1 for existing table");
+            } else {
+                for (String statement : split(script)) {
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute(statement);
+                    }
+                }
+                Log.info("✅ Applied migration V" + version + " " + migration[1]);
+            }
+            record(connection, version, migration[1], checksum, System.currentTimeMillis() - start);
+        }
+
+        if (!applied.isEmpty()) {
+            throw new SQLException("Database schema is at V" + applied.keySet().stream().max(Integer::compare).get()
+                    + ", newer than this build (V" + latest + ")");
+        }
+        return latest;
+    }
+
+    private static Map<Integer, String> loadApplied(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void record(Connection connection, int version, String description,
+                               String checksum, long elapsedMillis) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            stmt.setInt(1, version);
+            stmt.setString(2, description);
+            stmt.setString(3, checksum);
+            stmt.setLong(4, elapsedMillis);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Adds what V1 has and a table created on connect by earlier builds lacks:
+    // client_msg_id and the indexes. Column types are left to V3. Partitioned
+    // tables cannot hold the unique key or the FULLTEXT index and get a plain
+    // index on client_msg_id instead.
+    private static void baseline(Connection connection) throws SQLException {
+        boolean partitioned = PartitionMaintenance.detectScheme(connection) != DatabaseService.PartitionScheme.NONE;
+
+        try (Statement stmt = connection.createStatement()) {
+            boolean hasClientMsgId;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.columns " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'received_data' AND column_name = 'client_msg_id'")) {
+                hasClientMsgId = rs.next() && rs.getInt(1) > 0;
+            }
+            if (!hasClientMsgId) {
+                stmt.execute("ALTER TABLE received_data ADD COLUMN client_msg_id VARCHAR(64) NULL");
+            }
+
+            Set<String> existing = new HashSet<>();
+            try (ResultSet rs = stmt.executeQuery("SELECT DISTINCT index_name FROM information_schema.statistics " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'received_data'")) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1).toLowerCase());
+                }
+            }
+
+            List<String[]> indexes = new ArrayList<>(List.of(
+                    new String[] {"idx_received_at", "CREATE INDEX idx_received_at ON received_data(received_at)"},
+                    new String[] {"idx_sender_ip", "CREATE INDEX idx_sender_ip ON received_data(sender_ip)"},
+                    new String[] {"idx_status", "CREATE INDEX idx_status ON received_data(status)"}));
+            if (partitioned) {
+                indexes.add(new String[] {"idx_client_msg_id", "CREATE INDEX idx_client_msg_id ON received_data(client_msg_id)"});
+            } else {
+                indexes.add(new String[] {"uk_client_msg_id", "CREATE UNIQUE INDEX uk_client_msg_id ON received_data(client_msg_id)"});
+            }
+
+            for (String[] index : indexes) {
+                if (!existing.contains(index[0])) {
+                    stmt.execute(index[1]);
+                }
+            }
+
+            // Search works without it, just slower
+            if (!partitioned && !existing.contains("ft_data_content")) {
+                try {
+                    stmt.execute("ALTER TABLE received_data ADD FULLTEXT INDEX ft_data_content (data_content)");
+                } catch (SQLException e) {
+                    Log.warn("⚠️ Could not create index ft_data_content: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name = ?")) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static String load(String[] migration) throws SQLException {
+        String name = RESOURCE_DIR + "V" + migration[0] + "__" + migration[1] + ".sql";
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new SQLException("Migration script missing: " + name);
+            }
+            // Checkouts with CRLF line endings must hash the same
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Cannot read migration script " + name, e);
+        }
+    }
+
+    // Statements end with ';' at the end of a line; '--' lines are comments
+    private static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = current.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String sha256(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ignite.desktop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// A history search split into the kinds of token every store understands:
+// status names match status exactly, IP-like tokens match sender_ip by prefix
+// and anything else is a word looked for in the message text. All tokens must match.
+final class SearchQuery {
+
+    private static final Set<String> STATUS_VALUES = Set.of("RECEIVED", "SAVED", "ERROR", "NOT_SAVED");
+    // At least three dotted groups, so decimals like "1.5" stay words
+    private static final Pattern IP_TOKEN = Pattern.compile(
+            "\\d{1,3}(\\.\\d{0,3}){2,3}|[0-9a-fA-F]{0,4}(:[0-9a-fA-F]{0,4}){2,7}");
+
+    final List<String> statuses = new ArrayList<>();
+    final List<String> ipPrefixes = new ArrayList<>();
+    final List<String> words = new ArrayList<>();
+
+    private SearchQuery() {}
+
+    static SearchQuery parse(String query) {
+        SearchQuery parsed = new SearchQuery();
+        for (String token : query == null ? new String[0] : query.trim().split("\\s+")) {
+            if (token.isEmpty()) continue;
+
+            if (STATUS_VALUES.contains(token.toUpperCase())) {
+                parsed.statuses.add(token.toUpperCase());
+            } else if (IP_TOKEN.matcher(token).matches()) {
+                parsed.ipPrefixes.add(token);
+            } else {
+                parsed.words.add(token);
+            }
+        }
+        return parsed;
+    }
+
+    // Everything but the text; cheap enough to check before the content is read
+    boolean matchesColumns(String status, String senderIp) {
+        for (String wanted : statuses) {
+            if (!wanted.equals(status)) return false;
+        }
+        for (String prefix : ipPrefixes) {
+            if (senderIp == null || !senderIp.startsWith(prefix)) return false;
+        }
+        return true;
+    }
+
+    // Case-insensitive substring match, like LIKE '%word%' under the default collation
+    boolean matchesText(String content) {
+        if (words.isEmpty()) return true;
+        if (content == null) return false;
+
+        String lower = content.toLowerCase(Locale.ROOT);
+        for (String word : words) {
+            if (!lower.contains(word.toLowerCase(Locale.ROOT))) return false;
+        }
+        return true;
+    }
+}
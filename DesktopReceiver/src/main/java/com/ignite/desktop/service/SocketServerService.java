@@ -1,12 +1,22 @@
 package com.ignite.desktop.service;
 
 import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
 import javafx.application.Platform;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class SocketServerService {
@@ -15,17 +25,82 @@ public class SocketServerService {
 
     private ServerSocket serverSocket;
     private ExecutorService executorService;
+    private Thread acceptThread;
     private volatile boolean isRunning = false;
 
     private String ipAddress = "192.168.0.101";
     private int port = 3005;
+    // Pending connections the OS queues before accept(); applied on the next start
+    private int backlog = 50;
+
+    public enum IngestMode {
+        BLOCKING,   // one handler thread per connected client
+        NIO         // selector-based event loops, fixed thread count
+    }
+
+    private static final String ACK_MESSAGE = "ACK: Data received successfully";
+
+    // v2 (pipelined) protocol: the client sends "MSG2 <seq> <payload>" with
+    // increasing sequence numbers and does not wait for a reply per line. The
+    // server answers "ACK2 <n>" once everything up to n is persisted, and
+    // "NAK2 <seq>" for a message the database refused, "BUSY2 <seq>" for one to
+    // send again later. Plain lines are v1.
+    // Binary-framed clients get the same semantics with frame types instead of
+    // line prefixes; see FrameCodec.
+    private static final int READ_CHUNK_SIZE = 8 * 1024;
+
+    // One thread sends every v2 ack, so a burst of persisted rows for the
+    // same client collapses into a single ACK2 line
+    private static final ExecutorService ackExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ack-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private IngestMode ingestMode = IngestMode.BLOCKING;
+    private int nioEventLoopCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private NioIngestServer nioServer;
+
+    public enum ExecutorStrategy {
+        CACHED,     // unbounded platform thread pool (original behaviour)
+        BOUNDED,    // fixed number of platform threads, extra clients wait in queue
+        VIRTUAL     // one virtual thread per client (Java 21+)
+    }
+
+    private ExecutorStrategy executorStrategy = ExecutorStrategy.CACHED;
+    private ExecutorStrategy requestedExecutorStrategy = ExecutorStrategy.CACHED;
+    private ExecutorStrategy activeExecutorStrategy = ExecutorStrategy.CACHED;
+    private int boundedPoolSize = 64;
+
+    private final AtomicInteger activeHandlers = new AtomicInteger();
+    private final AtomicInteger peakHandlers = new AtomicInteger();
+    private final AtomicLong totalHandled = new AtomicLong();
+
+    // Resends of v2 messages with a client message id are answered from here
+    // instead of being written again
+    private static final int RECENT_ID_CAPACITY = 100_000;
+    private final RecentMessageIds recentMessageIds = new RecentMessageIds(RECENT_ID_CAPACITY);
+    private final AtomicLong duplicatesSuppressed = new AtomicLong();
 
     private volatile Consumer<ReceivedData> onDataReceivedCallback;
     private volatile Consumer<String> onStatusChangeCallback;
     private volatile Consumer<String> onErrorCallback;
 
+    private final PersistenceService persistenceService;
+    private final IngestAdmission admission;
+
+    // Messages are journaled before they are answered; null until the first
+    // start, and when the journal could not be opened
+    private static final int JOURNAL_QUEUE_CAPACITY = 10_000;
+    private File journalDirectory =
+            new File(System.getProperty("user.home"), ".ignite-desktop" + File.separator + "journal");
+    private volatile WriteAheadJournal journal;
+    private JournalReplayer journalReplayer;
+
     private SocketServerService() {
-        executorService = Executors.newCachedThreadPool();
+        executorService = createClientExecutor(executorStrategy);
+        persistenceService = PersistenceService.getInstance();
+        admission = new IngestAdmission(persistenceService);
     }
 
     public static synchronized SocketServerService getInstance() {
@@ -42,7 +117,7 @@ public class SocketServerService {
 
     public void setOnDataReceivedCallback(Consumer<ReceivedData> callback) {
         this.onDataReceivedCallback = callback;
-        System.out.println("📌 Data callback registered: " + (callback != null));
+        Log.info("📌 Data callback registered: " + (callback != null));
     }
 
     public void setOnStatusChangeCallback(Consumer<String> callback) {
@@ -53,6 +128,84 @@ public class SocketServerService {
         this.onErrorCallback = callback;
     }
 
+    public void setIngestMode(IngestMode ingestMode) {
+        this.ingestMode = ingestMode;
+    }
+
+    public IngestMode getIngestMode() {
+        return ingestMode;
+    }
+
+    public void setNioEventLoopCount(int nioEventLoopCount) {
+        this.nioEventLoopCount = Math.max(1, nioEventLoopCount);
+    }
+
+    // Takes effect on the next startServer() call.
+    public void setExecutorStrategy(ExecutorStrategy executorStrategy) {
+        this.executorStrategy = executorStrategy;
+    }
+
+    public ExecutorStrategy getExecutorStrategy() {
+        return executorStrategy;
+    }
+
+    public void setBoundedPoolSize(int boundedPoolSize) {
+        this.boundedPoolSize = Math.max(1, boundedPoolSize);
+    }
+
+    // Applied when the journal is first opened
+    public void setJournalDirectory(File journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public File getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = Math.max(1, backlog);
+    }
+
+    // 0 means no limit. Connections beyond the limit are closed right after accept.
+    public void setMaxClients(int maxClients) {
+        admission.setMaxClients(maxClients);
+    }
+
+    // Messages per second, per client and across all clients; 0 means no limit.
+    // Over the limit the server stops reading, so senders are slowed by TCP
+    // flow control rather than dropped.
+    public void setRateLimits(double perClientPerSecond, double totalPerSecond) {
+        admission.setRateLimits(perClientPerSecond, totalPerSecond);
+    }
+
+    public long getRefusedConnectionCount() {
+        return admission.getRefusedConnections();
+    }
+
+    public long getThrottledReadCount() {
+        return admission.getThrottledReads();
+    }
+
+    public long getBusyReplyCount() {
+        return admission.getBusyReplies();
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    public int getActiveHandlerCount() {
+        return activeHandlers.get();
+    }
+
+    public int getPeakHandlerCount() {
+        return peakHandlers.get();
+    }
+
+    public long getTotalHandledCount() {
+        return totalHandled.get();
+    }
+
     public int getPort() {
         return port;
     }
@@ -61,6 +214,12 @@ public class SocketServerService {
         return ipAddress;
     }
 
+    // Call after the stored messages were cleared or the storage engine changed;
+    // otherwise resent ids that no longer exist would still be answered as duplicates
+    public void forgetRecentMessageIds() {
+        recentMessageIds.clear();
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
@@ -96,15 +255,26 @@ public class SocketServerService {
 
 
     public boolean startServer() {
+        return startServer(ingestMode);
+    }
+
+    public boolean startServer(IngestMode mode) {
+        ingestMode = mode;
+        persistenceService.start();
+        openJournal();
         try {
-            // Try binding to specific IP first
-            try {
-                InetAddress bindAddress = InetAddress.getByName(ipAddress);
-                serverSocket = new ServerSocket(port, 50, bindAddress);
-            } catch (BindException e) {
-                // Fall back to all interfaces
-                serverSocket = new ServerSocket(port);
-                ipAddress = getLocalIpAddress();
+            if (mode == IngestMode.NIO) {
+                startNioServer();
+            } else {
+                // Try binding to specific IP first
+                try {
+                    InetAddress bindAddress = InetAddress.getByName(ipAddress);
+                    serverSocket = new ServerSocket(port, backlog, bindAddress);
+                } catch (BindException e) {
+                    // Fall back to all interfaces
+                    serverSocket = new ServerSocket(port, backlog);
+                    ipAddress = getLocalIpAddress();
+                }
             }
 
             // Update port to actual bound port (in case 0 was used)
@@ -112,35 +282,146 @@ public class SocketServerService {
 
             isRunning = true;
             notifyStatus("✅ Server started on " + ipAddress + ":" + port);
-            System.out.println("🚀 Server listening on " + ipAddress + ":" + port);
+            Log.info("🚀 Server listening on " + ipAddress + ":" + port + " (" + mode + ")");
+
+            if (mode == IngestMode.BLOCKING) {
+                prepareClientExecutor();
 
-            // Start accepting connections in a separate thread
-            executorService.submit(this::acceptConnections);
+                // Start accepting connections in a separate thread
+                acceptThread = new Thread(this::acceptConnections, "socket-acceptor");
+                acceptThread.setDaemon(true);
+                acceptThread.start();
+            }
 
             return true;
 
         } catch (IOException e) {
             notifyError("Failed to start server: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Failed to start server: " + e.getMessage(), e);
             return false;
         }
     }
 
+    // Without a journal the server still runs; replies then wait for the
+    // database instead (v2) or promise nothing (v1), as they did before
+    private synchronized void openJournal() {
+        if (journal != null) return;
+
+        WriteAheadJournal opened = new WriteAheadJournal(journalDirectory, JOURNAL_QUEUE_CAPACITY);
+        try {
+            opened.open();
+        } catch (IOException e) {
+            Log.error("❌ Could not open the journal, messages are not journaled: " + e.getMessage());
+            return;
+        }
+        journalReplayer = new JournalReplayer(opened, DatabaseService.getInstance());
+        journalReplayer.start();
+        journal = opened;
+    }
+
+    private void prepareClientExecutor() {
+        if (executorService.isShutdown() || requestedExecutorStrategy != executorStrategy) {
+            // Handlers already running on the old executor finish on their own
+            executorService.shutdown();
+            executorService = createClientExecutor(executorStrategy);
+        }
+    }
+
+    private ExecutorService createClientExecutor(ExecutorStrategy strategy) {
+        requestedExecutorStrategy = strategy;
+        ExecutorService executor = null;
+
+        if (strategy == ExecutorStrategy.VIRTUAL) {
+            executor = newVirtualThreadExecutor();
+            if (executor == null) {
+                Log.warn("⚠️ Virtual threads need Java 21+, falling back to cached pool");
+                strategy = ExecutorStrategy.CACHED;
+            }
+        } else if (strategy == ExecutorStrategy.BOUNDED) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(boundedPoolSize, boundedPoolSize,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool();
+        }
+
+        activeExecutorStrategy = strategy;
+        Log.info("🧵 Client executor: " + strategy);
+        return executor;
+    }
+
+    // Looked up reflectively so the project still compiles on Java 17.
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (!isVirtualThreadSupported()) return null;
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private void startNioServer() throws IOException {
+        nioServer = new NioIngestServer(nioEventLoopCount,
+                this::handleMessage,
+                ackExecutor,
+                admission,
+                clientIp -> {
+                    Log.info("📱 Client connected: " + clientIp);
+                    notifyStatus("📱 Client connected: " + clientIp);
+                },
+                clientIp -> {
+                    Log.info("🔌 Client disconnected: " + clientIp);
+                    notifyStatus("🔌 Client disconnected: " + clientIp);
+                });
+
+        try {
+            // Try binding to specific IP first
+            try {
+                serverSocket = nioServer.start(
+                        new InetSocketAddress(InetAddress.getByName(ipAddress), port), backlog);
+            } catch (BindException e) {
+                // Fall back to all interfaces
+                serverSocket = nioServer.start(new InetSocketAddress(port), backlog);
+                ipAddress = getLocalIpAddress();
+            }
+        } catch (IOException e) {
+            nioServer = null;
+            throw e;
+        }
+    }
+
     private void acceptConnections() {
         while (isRunning && serverSocket != null && !serverSocket.isClosed()) {
             try {
                 Socket clientSocket = serverSocket.accept();
                 String clientIp = clientSocket.getInetAddress().getHostAddress();
 
-                System.out.println("📱 Client connected: " + clientIp);
+                if (!admission.tryOpenConnection()) {
+                    Log.warn("🚫 Refused " + clientIp + ": too many clients");
+                    clientSocket.close();
+                    continue;
+                }
+
+                Log.info("📱 Client connected: " + clientIp);
                 notifyStatus("📱 Client connected: " + clientIp);
 
                 // Handle client in a separate thread
-                executorService.submit(() -> handleClient(clientSocket));
+                try {
+                    executorService.submit(() -> handleClient(clientSocket));
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; handleClient will not release the slot
+                    Log.warn("🚫 Refused " + clientIp + ": server is stopping");
+                    admission.connectionClosed();
+                    clientSocket.close();
+                }
 
             } catch (SocketException e) {
                 if (isRunning) {
-                    System.err.println("Socket exception: " + e.getMessage());
+                    Log.warn("Socket exception: " + e.getMessage());
                 }
             } catch (IOException e) {
                 if (isRunning) {
@@ -153,67 +434,218 @@ public class SocketServerService {
     private void handleClient(Socket clientSocket) {
         String clientIp = clientSocket.getInetAddress().getHostAddress();
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(clientSocket.getInputStream()));
-             PrintWriter writer = new PrintWriter(
-                     clientSocket.getOutputStream(), true)) {
-
-            String receivedMessage;
-            while ((receivedMessage = reader.readLine()) != null) {
-                final String message = receivedMessage.trim();
-
-                System.out.println("📩 Received: " + message + " from " + clientIp);
-
-                // Create data object
-                ReceivedData data = new ReceivedData(message, clientIp);
-
-                // Check if callback is registered
-                if (onDataReceivedCallback != null) {
-                    System.out.println("📤 Sending data to callback...");
-
-                    // Notify callback on JavaFX thread
-                    Platform.runLater(() -> {
-                        try {
-                            onDataReceivedCallback.accept(data);
-                            System.out.println("✅ Callback executed successfully");
-                        } catch (Exception e) {
-                            System.err.println("❌ Callback error: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                    });
-                } else {
-                    System.err.println("⚠️ No callback registered! Data will not be shown in UI.");
+        int active = activeHandlers.incrementAndGet();
+        peakHandlers.accumulateAndGet(active, Math::max);
+        totalHandled.incrementAndGet();
+
+        try (InputStream input = clientSocket.getInputStream();
+             OutputStream output = clientSocket.getOutputStream()) {
+
+            BlockingClientConnection connection =
+                    new BlockingClientConnection(clientIp, output, this::handleMessage);
+
+            // Raw bytes go through the connection's decoder, which picks text or
+            // binary framing from the first byte and bounds every message
+            byte[] chunk = new byte[READ_CHUNK_SIZE];
+            ByteBuffer view = ByteBuffer.wrap(chunk);
+            int read;
+            while (true) {
+                // Over a rate limit or with persistence backed up, leave the
+                // bytes in the socket so TCP pushes back on the client
+                admission.awaitReadable(connection);
+                read = input.read(chunk);
+                if (read == -1) break;
+
+                view.limit(read).position(0);
+                if (!connection.receive(view)) {
+                    break;
                 }
-
-                // Send acknowledgment
-                writer.println("ACK: Data received successfully");
-                writer.flush();
             }
 
         } catch (IOException e) {
-            System.err.println("Error handling client: " + e.getMessage());
+            Log.warn("Error handling client " + clientIp + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
+            activeHandlers.decrementAndGet();
+            admission.connectionClosed();
             try {
                 clientSocket.close();
-                System.out.println("🔌 Client disconnected: " + clientIp);
+                Log.info("🔌 Client disconnected: " + clientIp);
                 notifyStatus("🔌 Client disconnected: " + clientIp);
             } catch (IOException e) {
-                e.printStackTrace();
+                Log.warn("⚠️ Could not close client socket " + clientIp + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Writes to the handler's socket; v2 acks arrive from the ack-flusher thread.
+    private static final class BlockingClientConnection extends ClientConnection {
+
+        private final OutputStream output;
+
+        BlockingClientConnection(String clientIp, OutputStream output, MessageHandler handler) {
+            super(clientIp, ackExecutor, handler);
+            this.output = output;
+        }
+
+        @Override
+        void sendBytes(byte[] bytes) {
+            synchronized (output) {
+                try {
+                    output.write(bytes);
+                    output.flush();
+                } catch (IOException e) {
+                    // The reader sees the broken socket and closes the connection
+                    Log.debug(() -> "Reply to " + clientIp + " failed: " + e.getMessage());
+                }
             }
         }
     }
 
+    // Shared by both ingest modes and both framings. v1 messages are answered
+    // right away; v2 messages are answered once persisted.
+    private void handleMessage(ClientConnection connection, long sequence, String clientMsgId, String text) {
+        final String clientIp = connection.clientIp;
+        final String message = text.trim();
+
+        admission.onMessage(connection);
+
+        if (clientMsgId != null && recentMessageIds.contains(clientMsgId)) {
+            acknowledgeDuplicate(connection, sequence, clientMsgId);
+            return;
+        }
+
+        Log.debug(() -> "📩 Received: " + message + " from " + clientIp);
+
+        // Create data object
+        ReceivedData data = new ReceivedData(message, clientIp);
+        data.setClientMsgId(clientMsgId);
+
+        // Callback runs on this network thread; the UI side coalesces before touching FX
+        Consumer<ReceivedData> callback = onDataReceivedCallback;
+        if (callback != null) {
+            try {
+                callback.accept(data);
+            } catch (Exception e) {
+                Log.error("❌ Callback error: " + e.getMessage(), e);
+            }
+        } else {
+            Log.warn("⚠️ No callback registered! Data will not be shown in UI.");
+        }
+
+        // Journal and queue after the UI notification is queued, so the
+        // persisted callback can never overtake it
+        WriteAheadJournal currentJournal = journal;
+        if (currentJournal != null
+                && currentJournal.append(data, lsn -> onJournaled(connection, sequence, clientMsgId, data, lsn))) {
+            return;
+        }
+        if (currentJournal != null && sequence >= 0) {
+            // The journal queue is full; nothing has been promised yet
+            admission.recordBusy();
+            connection.onBusy(sequence);
+            return;
+        }
+        persistUnjournaled(connection, sequence, clientMsgId, data);
+    }
+
+    // On the journal thread, in arrival order. A journaled message is answered
+    // right away; the row reaches the database through the write-behind queue,
+    // or later through the replayer if that fails.
+    private void onJournaled(ClientConnection connection, long sequence, String clientMsgId,
+                             ReceivedData data, long lsn) {
+        if (lsn < 0) {
+            persistUnjournaled(connection, sequence, clientMsgId, data);
+            return;
+        }
+
+        WriteAheadJournal currentJournal = journal;
+        boolean queued = persistenceService.enqueue(data, saved -> {
+            if ("SAVED".equals(saved.getStatus())) {
+                currentJournal.markPersisted(lsn);
+                if (clientMsgId != null) {
+                    recentMessageIds.add(clientMsgId);
+                }
+            } else {
+                currentJournal.markFailed(lsn);
+            }
+        });
+        if (!queued) {
+            currentJournal.markFailed(lsn);
+        }
+
+        if (sequence < 0) {
+            connection.sendReply(ACK_MESSAGE);
+        } else {
+            connection.onPersisted(sequence, true);
+        }
+    }
+
+    private void persistUnjournaled(ClientConnection connection, long sequence, String clientMsgId,
+                                    ReceivedData data) {
+        if (sequence < 0) {
+            persistenceService.enqueue(data);
+            connection.sendReply(ACK_MESSAGE);
+            return;
+        }
+
+        boolean queued = persistenceService.enqueue(data, saved -> {
+            if ("NOT_SAVED".equals(saved.getStatus())) {
+                // The database is down, not the message at fault; a NAK would
+                // make the client drop a message it can send again later
+                connection.onBusy(sequence);
+                return;
+            }
+            boolean ok = "SAVED".equals(saved.getStatus());
+            if (ok && clientMsgId != null) {
+                recentMessageIds.add(clientMsgId);
+            }
+            connection.onPersisted(sequence, ok);
+        });
+        if (!queued) {
+            // Reading pauses before the queue fills, so this is a burst already
+            // in the read buffer; the client sends it again later
+            admission.recordBusy();
+            connection.onBusy(sequence);
+        }
+    }
+
+    // Already stored, so nothing is shown or written. The ack still goes through
+    // the journal (or the persistence queue without one): acks are cumulative, and
+    // this one must not overtake earlier messages from the same client that are
+    // still waiting to be journaled or saved.
+    private void acknowledgeDuplicate(ClientConnection connection, long sequence, String clientMsgId) {
+        duplicatesSuppressed.incrementAndGet();
+        Log.debug(() -> "♻️ Duplicate " + clientMsgId + " from " + connection.clientIp);
+
+        WriteAheadJournal currentJournal = journal;
+        Runnable ack = () -> connection.onPersisted(sequence, true);
+        boolean queued = currentJournal != null
+                ? currentJournal.appendMarker(ack)
+                : persistenceService.enqueueMarker(ack);
+        if (!queued) {
+            admission.recordBusy();
+            connection.onBusy(sequence);
+        }
+    }
+
     public void stopServer() {
         isRunning = false;
 
+        if (nioServer != null) {
+            nioServer.stop();
+            nioServer = null;
+        }
+
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
             notifyStatus("🛑 Server stopped");
-            System.out.println("🛑 Server stopped");
+            Log.info("🛑 Server stopped");
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("❌ Error stopping server: " + e.getMessage(), e);
         }
     }
 
@@ -232,6 +664,17 @@ public class SocketServerService {
     public void shutdown() {
         stopServer();
         executorService.shutdown();
+        WriteAheadJournal currentJournal;
+        synchronized (this) {
+            currentJournal = journal;
+            journal = null;
+        }
+        if (currentJournal != null) {
+            journalReplayer.stop();
+            // Commits what is queued, so the last replies still go out
+            currentJournal.close();
+        }
+        persistenceService.stop();
     }
 
     public String getStats() {
@@ -239,6 +682,23 @@ public class SocketServerService {
         stats.append("Server Status: ").append(isRunning ? "Running" : "Stopped").append("\n");
         stats.append("IP Address: ").append(ipAddress).append("\n");
         stats.append("Port: ").append(port).append("\n");
+        stats.append("Ingest Mode: ").append(ingestMode).append("\n");
+        if (ingestMode == IngestMode.BLOCKING) {
+            stats.append("Executor: ").append(activeExecutorStrategy).append("\n");
+            stats.append("Active Handlers: ").append(activeHandlers.get())
+                    .append(" (peak ").append(peakHandlers.get()).append(")\n");
+            stats.append("Total Clients Handled: ").append(totalHandled.get()).append("\n");
+        }
+        stats.append(admission.getStats());
+        WriteAheadJournal currentJournal = journal;
+        stats.append(currentJournal != null ? currentJournal.getStats() : "Journal: off\n");
+        stats.append("Duplicates Suppressed: ").append(duplicatesSuppressed.get())
+                .append(" (").append(recentMessageIds.size()).append(" recent ids)\n");
+        stats.append("JVM Threads: ").append(ManagementFactory.getThreadMXBean().getThreadCount()).append("\n");
+        if (nioServer != null) {
+            stats.append("Event Loops: ").append(nioServer.getEventLoopCount()).append("\n");
+            stats.append("Open Connections: ").append(nioServer.getConnectionCount()).append("\n");
+        }
         if (serverSocket != null && !serverSocket.isClosed()) {
             stats.append("Bound Address: ").append(serverSocket.getLocalSocketAddress()).append("\n");
         }
@@ -0,0 +1,37 @@
+package com.ignite.desktop.service;
+
+// Refills at ratePerSecond, holding at most burst tokens. take() never blocks
+// and may leave the bucket in debt; callers stop reading until it is back in
+// credit, so a burst is paid for afterwards instead of being cut mid-buffer.
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, double burst) {
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    synchronized void take(int count) {
+        refill();
+        tokens -= count;
+    }
+
+    // 0 when a token is available right now
+    synchronized long nanosUntilAvailable() {
+        refill();
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
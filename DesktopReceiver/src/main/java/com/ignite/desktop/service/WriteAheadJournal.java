@@ -0,0 +1,826 @@
+package com.ignite.desktop.service;
+
+import com.ignite.desktop.model.ReceivedData;
+import com.ignite.desktop.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+// Local write-ahead journal for received messages. Every message is written
+// here and forced to disk before the sender is answered; the database write
+// follows behind. A single writer thread takes whatever has queued up while
+// the previous fsync ran and commits it with one write and one fsync.
+//
+// Entries are numbered with a log sequence number (lsn) and kept in segment
+// files named after their first lsn. Each entry is in one of three states:
+// in flight (handed to PersistenceService), persisted, or neither - left over
+// from a crash, a database outage or a full persistence queue. JournalReplayer
+// loads the last kind, and a segment whose entries are all persisted is deleted.
+//
+// Persisted marks only count once the store has them on disk: truncate()
+// snapshots the marks, has the store force its data, and only then deletes
+// segments and writes the snapshot to a checkpoint file. After a restart the
+// checkpoint keeps persisted entries from being replayed. Only rows persisted
+// in the last moments before a crash are loaded again, and for those the
+// client message id, where the client sent one, drops the second copy.
+//
+// A row the store refuses on its own, while the store is otherwise working,
+// would block replay forever. It is moved to a dead-letter file in the same
+// record format, and replay carries on past it.
+//
+// Record: [length: 4 bytes][CRC32 of payload: 4 bytes][payload]
+// Payload: lsn, receivedAt, sender ip, client message id, text.
+final class WriteAheadJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final String CHECKPOINT_FILE = "journal.checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.wal";
+
+    private static final long MAX_SEGMENT_BYTES = 8 * 1024 * 1024;
+    // A fully persisted active segment is swapped for a new one past this size
+    private static final long TRUNCATE_ACTIVE_BYTES = 1024 * 1024;
+    private static final int MAX_GROUP_SIZE = 1_000;
+    private static final int REPLAY_BATCH_SIZE = 500;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD_SIZE = 4 * 1024 * 1024;
+
+    private final File directory;
+    private final BlockingQueue<Append> queue;
+
+    // Guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private long nextLsn = 1;
+    // Bumped by every persisted mark; the checkpoint is rewritten only when it moved
+    private long markVersion = 0;
+    private long checkpointVersion = 0;
+
+    private RandomAccessFile lockFile;
+    private FileLock directoryLock;
+    private Thread writerThread;
+    private volatile boolean open = false;
+
+    private final AtomicLong groupCommits = new AtomicLong();
+    private final AtomicLong journaledCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong deadLetterCount = new AtomicLong();
+    private volatile long lastSyncNanos = 0;
+
+    // data is null for a marker, which is only run in order
+    private static final class Append {
+        final ReceivedData data;
+        final LongConsumer onDurable;
+
+        Append(ReceivedData data, LongConsumer onDurable) {
+            this.data = data;
+            this.onDurable = onDurable;
+        }
+    }
+
+    WriteAheadJournal(File directory, int queueCapacity) {
+        this.directory = directory;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    synchronized void open() throws IOException {
+        if (open) return;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+        directoryLock = lockFile.getChannel().tryLock();
+        if (directoryLock == null) {
+            closeLockFile();
+            throw new IOException(directory + " is in use by another receiver");
+        }
+
+        try {
+            nextLsn = 1;
+            markVersion = 0;
+            checkpointVersion = 0;
+            recover();
+            loadCheckpoint();
+            // Earlier segments are sealed; everything in them is left for the replayer
+            roll();
+        } catch (IOException e) {
+            closeSegments();
+            closeLockFile();
+            throw e;
+        }
+
+        open = true;
+        writerThread = new Thread(this::writeLoop, "journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        Log.info("📓 Journal opened at " + directory + " (" + getBacklog() + " messages to replay)");
+    }
+
+    // Commits what is already queued, then closes the files
+    void close() {
+        Thread thread;
+        synchronized (this) {
+            if (!open) return;
+            open = false;
+            thread = writerThread;
+            writerThread = null;
+        }
+
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            closeSegments();
+            closeLockFile();
+        }
+        Log.info("📓 Journal closed");
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    // Never blocks. onDurable runs on the journal thread, in append order, with
+    // the entry's lsn once it is on disk, or -1 if it could not be written.
+    // Returns false when the queue is full.
+    boolean append(ReceivedData data, LongConsumer onDurable) {
+        return open && queue.offer(new Append(data, onDurable));
+    }
+
+    // Runs action on the journal thread once everything appended before it is durable
+    boolean appendMarker(Runnable action) {
+        return open && queue.offer(new Append(null, ignored -> action.run()));
+    }
+
+    // The entry's row is in the database
+    synchronized void markPersisted(long lsn) {
+        Segment segment = segmentOf(lsn);
+        if (segment == null) return;
+
+        int index = (int) (lsn - segment.firstLsn);
+        if (segment.queued.get(index)) {
+            segment.queued.clear(index);
+            segment.queuedCount--;
+        }
+        if (!segment.done.get(index)) {
+            segment.done.set(index);
+            segment.doneCount++;
+            markVersion++;
+        }
+    }
+
+    // The entry's row did not reach the database; leave it to the replayer
+    synchronized void markFailed(long lsn) {
+        Segment segment = segmentOf(lsn);
+        if (segment == null) return;
+
+        int index = (int) (lsn - segment.firstLsn);
+        if (segment.queued.get(index)) {
+            segment.queued.clear(index);
+            segment.queuedCount--;
+        }
+    }
+
+    // Entries that are neither persisted nor in flight
+    synchronized int getBacklog() {
+        int backlog = 0;
+        for (Segment segment : segments.values()) {
+            backlog += segment.count - segment.doneCount - segment.queuedCount;
+        }
+        return backlog;
+    }
+
+    // Reads backlog entries oldest first and passes them to saver in batches.
+    // A refused batch is retried row by row; a row refused while available
+    // still reports true goes to the dead-letter file. Replay stops once the
+    // store becomes unavailable. Returns the number of rows saved.
+    int replay(Predicate<List<ReceivedData>> saver, BooleanSupplier available) {
+        long before = replayedCount.get();
+        List<Segment> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(segments.values());
+        }
+
+        int replayed = 0;
+        for (Segment segment : snapshot) {
+            long length;
+            synchronized (this) {
+                if (!segments.containsKey(segment.firstLsn)
+                        || segment.count - segment.doneCount - segment.queuedCount == 0) {
+                    continue;
+                }
+                length = segment.size;
+            }
+
+            List<ReceivedData> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+            List<Long> lsns = new ArrayList<>(REPLAY_BATCH_SIZE);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(segment.file), 64 * 1024))) {
+                long position = 0;
+                while (position + RECORD_HEADER_SIZE <= length) {
+                    byte[] payload = readRecord(in, length - position);
+                    if (payload == null) break;
+                    position += RECORD_HEADER_SIZE + payload.length;
+
+                    DataInputStream entry = new DataInputStream(new ByteArrayInputStream(payload));
+                    long lsn = entry.readLong();
+                    if (!claim(segment, lsn)) continue;
+
+                    batch.add(decode(entry));
+                    lsns.add(lsn);
+                    if (batch.size() == REPLAY_BATCH_SIZE) {
+                        if (!flushReplay(saver, available, batch, lsns)) return replayedSince(before);
+                    }
+                }
+            } catch (IOException e) {
+                Log.error("❌ Could not read journal segment " + segment.file + ": " + e.getMessage());
+                release(lsns);
+                return replayedSince(before);
+            }
+
+            if (!batch.isEmpty()) {
+                if (!flushReplay(saver, available, batch, lsns)) return replayedSince(before);
+            }
+        }
+        return replayedSince(before);
+    }
+
+    private int replayedSince(long before) {
+        return (int) (replayedCount.get() - before);
+    }
+
+    // False when replay should stop; the batch's unsaved entries are released
+    private boolean flushReplay(Predicate<List<ReceivedData>> saver, BooleanSupplier available,
+                                List<ReceivedData> batch, List<Long> lsns) {
+        try {
+            if (save(saver, batch)) {
+                for (long lsn : lsns) {
+                    markPersisted(lsn);
+                }
+                replayedCount.addAndGet(lsns.size());
+                return true;
+            }
+            if (!available.getAsBoolean()) {
+                release(lsns);
+                return false;
+            }
+
+            // Saves are all-or-nothing, so one bad row fails the whole batch; find it
+            for (int i = 0; i < batch.size(); i++) {
+                long lsn = lsns.get(i);
+                if (save(saver, List.of(batch.get(i)))) {
+                    markPersisted(lsn);
+                    replayedCount.incrementAndGet();
+                } else if (available.getAsBoolean() && deadLetter(lsn, batch.get(i))) {
+                    markPersisted(lsn);
+                } else {
+                    release(lsns.subList(i, lsns.size()));
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            batch.clear();
+            lsns.clear();
+        }
+    }
+
+    private static boolean save(Predicate<List<ReceivedData>> saver, List<ReceivedData> rows) {
+        try {
+            return saver.test(rows);
+        } catch (Exception e) {
+            Log.error("❌ Journal replay error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Appends the entry to the dead-letter file and forces it
+    private synchronized boolean deadLetter(long lsn, ReceivedData data) {
+        File file = new File(directory, DEAD_LETTER_FILE);
+        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+            ByteBuffer buffer = ByteBuffer.wrap(encodeRecord(encode(lsn, data)));
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.error("❌ Could not write to " + file + ": " + e.getMessage());
+            return false;
+        }
+        deadLetterCount.incrementAndGet();
+        Log.error("☠️ Journal entry " + lsn + " from " + data.getSenderIp()
+                + " was refused by the database and moved to " + file);
+        return true;
+    }
+
+    private synchronized boolean claim(Segment segment, long lsn) {
+        int index = (int) (lsn - segment.firstLsn);
+        if (index < 0 || index >= segment.count
+                || segment.done.get(index) || segment.queued.get(index)) {
+            return false;
+        }
+        segment.queued.set(index);
+        segment.queuedCount++;
+        return true;
+    }
+
+    private void release(List<Long> lsns) {
+        for (long lsn : lsns) {
+            markFailed(lsn);
+        }
+    }
+
+    // Deletes segments whose entries are all persisted and checkpoints the
+    // marks of the rest, but only after makeDurable reports that the store has
+    // forced everything saved so far to disk. Marks made while it runs wait for
+    // the next call. The active segment goes too once it is big enough to be
+    // worth replacing, or when force is set.
+    void truncate(boolean force, BooleanSupplier makeDurable) {
+        Map<Long, BitSet> snapshot = new TreeMap<>();
+        long version;
+        synchronized (this) {
+            if (!open) return;
+            for (Segment segment : segments.values()) {
+                snapshot.put(segment.firstLsn, (BitSet) segment.done.clone());
+            }
+            version = markVersion;
+        }
+
+        if (!makeDurable.getAsBoolean()) return;
+
+        synchronized (this) {
+            if (!open) return;
+            if (deleteFinished(snapshot, force) || version != checkpointVersion) {
+                writeCheckpoint(snapshot);
+                checkpointVersion = version;
+            }
+        }
+    }
+
+    // True when a segment was deleted
+    private boolean deleteFinished(Map<Long, BitSet> snapshot, boolean force) {
+        boolean deleted = false;
+        List<Segment> finished = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            BitSet done = snapshot.get(segment.firstLsn);
+            // Entries appended after the snapshot are not in it, so their segment stays
+            if (done != null && done.cardinality() == segment.count) {
+                finished.add(segment);
+            }
+        }
+
+        for (Segment segment : finished) {
+            if (segment == active) {
+                if (segment.count == 0 || (!force && segment.size < TRUNCATE_ACTIVE_BYTES)) continue;
+                try {
+                    roll();
+                } catch (IOException e) {
+                    Log.error("❌ Could not start a new journal segment: " + e.getMessage());
+                    continue;
+                }
+            }
+            segments.remove(segment.firstLsn);
+            snapshot.remove(segment.firstLsn);
+            deleted = true;
+            closeQuietly(segment.channel);
+            if (!segment.file.delete()) {
+                Log.warn("⚠️ Could not delete " + segment.file);
+            }
+        }
+        return deleted;
+    }
+
+    // [segments: 4 bytes] then per segment [firstLsn: 8 bytes][length: 4 bytes][done bits],
+    // all under a trailing CRC32. Written aside and renamed, so it is never torn.
+    private void writeCheckpoint(Map<Long, BitSet> snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(snapshot.size());
+            for (Map.Entry<Long, BitSet> entry : snapshot.entrySet()) {
+                byte[] bits = entry.getValue().toByteArray();
+                out.writeLong(entry.getKey());
+                out.writeInt(bits.length);
+                out.write(bits);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        File target = new File(directory, CHECKPOINT_FILE);
+        File partial = new File(directory, CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = new RandomAccessFile(partial, "rw").getChannel()) {
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocate(bytes.size() + Integer.BYTES)
+                    .put(bytes.toByteArray())
+                    .putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.warn("⚠️ Could not write " + partial + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(partial.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("⚠️ Could not replace " + target + ": " + e.getMessage());
+        }
+    }
+
+    // Restores the persisted marks of the last checkpoint; a missing or
+    // damaged file only means more entries are replayed
+    private void loadCheckpoint() throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        if (!file.isFile()) return;
+        if (segments.isEmpty()) {
+            // Lsns start over, so its entries would land on new segments
+            if (!file.delete()) {
+                throw new IOException("Cannot delete stale " + file);
+            }
+            return;
+        }
+
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            if (content.length < 2 * Integer.BYTES) return;
+
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length - Integer.BYTES);
+            if ((int) crc.getValue() != ByteBuffer.wrap(content, content.length - Integer.BYTES, Integer.BYTES).getInt()) {
+                Log.warn("⚠️ Ignoring damaged " + file);
+                return;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - Integer.BYTES));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long firstLsn = in.readLong();
+                byte[] bits = new byte[in.readInt()];
+                in.readFully(bits);
+
+                Segment segment = segments.get(firstLsn);
+                if (segment == null) continue;
+                BitSet done = BitSet.valueOf(bits);
+                // Bits past a torn tail belong to entries that are gone
+                done.clear(segment.count, Math.max(segment.count, done.length()));
+                segment.done.or(done);
+                segment.doneCount = segment.done.cardinality();
+            }
+        } catch (IOException e) {
+            Log.warn("⚠️ Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+
+        while (open || !queue.isEmpty()) {
+            try {
+                Append first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                // No deliberate wait: whatever queued up during the last fsync
+                // goes into this one
+                queue.drainTo(batch, MAX_GROUP_SIZE - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Append> batch) {
+        long[] lsns = new long[batch.size()];
+        Segment segment;
+        int entries = 0;
+        boolean durable = false;
+
+        synchronized (this) {
+            segment = active;
+            try {
+                if (segment.size >= MAX_SEGMENT_BYTES) {
+                    roll();
+                    segment = active;
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 128);
+                long lsn = nextLsn;
+                for (int i = 0; i < batch.size(); i++) {
+                    ReceivedData data = batch.get(i).data;
+                    if (data == null) continue;
+                    byte[] record = encodeRecord(encode(lsn, data));
+                    bytes.write(record, 0, record.length);
+                    lsns[i] = lsn++;
+                }
+
+                entries = (int) (lsn - nextLsn);
+                if (entries > 0) {
+                    write(segment, bytes.toByteArray());
+                    for (int i = 0; i < entries; i++) {
+                        segment.queued.set(segment.count + i);
+                    }
+                    segment.count += entries;
+                    segment.queuedCount += entries;
+                    nextLsn = lsn;
+                }
+                durable = true;
+            } catch (IOException e) {
+                Log.error("❌ Journal write failed: " + e.getMessage());
+            }
+        }
+
+        if (durable && entries > 0) {
+            long start = System.nanoTime();
+            try {
+                segment.channel.force(false);
+                lastSyncNanos = System.nanoTime() - start;
+                groupCommits.incrementAndGet();
+            } catch (IOException e) {
+                // Written but maybe not on disk; answer as unjournaled and let
+                // the replayer load the entries too
+                Log.error("❌ Journal sync failed: " + e.getMessage());
+                durable = false;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.get(i).data != null) markFailed(lsns[i]);
+                }
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Append append = batch.get(i);
+            if (append.data != null) {
+                if (durable) journaledCount.incrementAndGet();
+                run(append.onDurable, durable ? lsns[i] : -1);
+            } else {
+                run(append.onDurable, -1);
+            }
+        }
+    }
+
+    private static void run(LongConsumer callback, long lsn) {
+        try {
+            callback.accept(lsn);
+        } catch (Exception e) {
+            Log.error("❌ Journal callback error: " + e.getMessage());
+        }
+    }
+
+    private void write(Segment segment, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer, segment.size + buffer.position());
+            }
+        } catch (IOException e) {
+            segment.channel.truncate(segment.size);
+            throw e;
+        }
+        segment.size += bytes.length;
+    }
+
+    private void roll() throws IOException {
+        Segment empty = segments.get(nextLsn);
+        if (empty != null) {
+            // Nothing was written since it was created
+            active = empty;
+            return;
+        }
+        File file = new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, nextLsn, SEGMENT_SUFFIX));
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.truncate(0);
+        Segment segment = new Segment(nextLsn, file, channel);
+        segments.put(segment.firstLsn, segment);
+        active = segment;
+    }
+
+    // Counts the entries of every segment and cuts off torn tails
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((parent, name) ->
+                name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        TreeMap<Long, File> ordered = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    ordered.put(Long.parseLong(file.getName().substring(SEGMENT_PREFIX.length(),
+                            file.getName().length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    Log.warn("⚠️ Ignoring unexpected file " + file);
+                }
+            }
+        }
+
+        for (Map.Entry<Long, File> entry : ordered.entrySet()) {
+            FileChannel channel = new RandomAccessFile(entry.getValue(), "rw").getChannel();
+            Segment segment = new Segment(entry.getKey(), entry.getValue(), channel);
+            segments.put(segment.firstLsn, segment);
+
+            long length = channel.size();
+            long position = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(segment.file), 64 * 1024))) {
+                while (position + RECORD_HEADER_SIZE <= length) {
+                    byte[] payload = readRecord(in, length - position);
+                    if (payload == null) break;
+                    long lsn = ByteBuffer.wrap(payload).getLong();
+                    if (lsn != segment.firstLsn + segment.count) break;
+                    position += RECORD_HEADER_SIZE + payload.length;
+                    segment.count++;
+                }
+            }
+
+            if (position < length) {
+                Log.warn("⚠️ Dropping " + (length - position) + " unreadable bytes at the end of " + segment.file);
+                channel.truncate(position);
+            }
+            segment.size = position;
+            nextLsn = Math.max(nextLsn, segment.firstLsn + segment.count);
+        }
+    }
+
+    // Null for a torn or corrupt record
+    private static byte[] readRecord(DataInputStream in, long available) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < Long.BYTES || length > MAX_PAYLOAD_SIZE || RECORD_HEADER_SIZE + length > available) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(long lsn, ReceivedData data) throws IOException {
+        LocalDateTime receivedAt = data.getReceivedAt() != null ? data.getReceivedAt() : LocalDateTime.now();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(lsn);
+        out.writeLong(receivedAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        writeString(out, data.getSenderIp());
+        writeString(out, data.getClientMsgId());
+        writeString(out, data.getDataContent());
+        return bytes.toByteArray();
+    }
+
+    // Reads what follows the lsn
+    private static ReceivedData decode(DataInputStream in) throws IOException {
+        ReceivedData data = new ReceivedData();
+        data.setReceivedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC));
+        data.setSenderIp(readString(in));
+        data.setClientMsgId(readString(in));
+        data.setDataContent(readString(in));
+        data.setStatus("RECEIVED");
+        return data;
+    }
+
+    private static byte[] encodeRecord(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Segment segmentOf(long lsn) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(lsn);
+        if (entry == null) return null;
+        Segment segment = entry.getValue();
+        return lsn - segment.firstLsn < segment.count ? segment : null;
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            closeQuietly(segment.channel);
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private void closeLockFile() {
+        try {
+            if (directoryLock != null) directoryLock.release();
+        } catch (IOException ignored) {
+        }
+        closeQuietly(lockFile);
+        directoryLock = null;
+        lockFile = null;
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    synchronized String getStats() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.size;
+        }
+        StringBuilder stats = new StringBuilder();
+        stats.append("Journal: ").append(open ? directory.toString() : "closed").append("\n");
+        stats.append("Journal Backlog: ").append(getBacklog()).append(" messages in ")
+                .append(segments.size()).append(" segments (")
+                .append(String.format("%.1f MB", bytes / (1024.0 * 1024.0))).append(")\n");
+        long commits = groupCommits.get();
+        stats.append("Group Commits: ").append(commits)
+                .append(String.format(" (avg %.1f msgs, last fsync %.2f ms)",
+                        commits == 0 ? 0.0 : journaledCount.get() / (double) commits, lastSyncNanos / 1_000_000.0))
+                .append(", Replayed: ").append(replayedCount.get())
+                .append(", Dead letters: ").append(deadLetterCount.get()).append("\n");
+        return stats.toString();
+    }
+
+    private static final class Segment {
+        final long firstLsn;
+        final File file;
+        final FileChannel channel;
+        long size;
+        int count;
+        // Indexed by lsn - firstLsn
+        final BitSet done = new BitSet();
+        final BitSet queued = new BitSet();
+        int doneCount;
+        int queuedCount;
+
+        Segment(long firstLsn, File file, FileChannel channel) {
+            this.firstLsn = firstLsn;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+}
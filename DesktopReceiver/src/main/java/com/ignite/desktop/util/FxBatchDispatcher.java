@@ -0,0 +1,69 @@
+package com.ignite.desktop.util;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Collects items from any thread and hands them to the FX thread in batches,
+// at most one batch per pulse, instead of one Platform.runLater per item.
+// The timer only runs while there is something to deliver.
+public class FxBatchDispatcher<T> {
+
+    private final ConcurrentLinkedQueue<T> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Consumer<List<T>> batchHandler;
+    private final int maxBatchSize;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drain();
+        }
+    };
+
+    public FxBatchDispatcher(Consumer<List<T>> batchHandler, int maxBatchSize) {
+        this.batchHandler = batchHandler;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    // Safe to call from any thread; never blocks.
+    public void submit(T item) {
+        pending.offer(item);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void drain() {
+        List<T> batch = new ArrayList<>(Math.min(maxBatchSize, 256));
+        T item;
+        while (batch.size() < maxBatchSize && (item = pending.poll()) != null) {
+            batch.add(item);
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                batchHandler.accept(batch);
+            } catch (Exception e) {
+                Log.error("❌ UI batch error: " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        // Idle: stop the timer, unless a producer slipped in after the last poll
+        timer.stop();
+        scheduled.set(false);
+        if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            timer.start();
+        }
+    }
+}
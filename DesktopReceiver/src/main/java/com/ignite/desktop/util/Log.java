@@ -0,0 +1,175 @@
+package com.ignite.desktop.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Leveled logging with a single background appender.
+// Callers only enqueue; formatting and console writes happen on the
+// "log-appender" thread, so a slow stdout never stalls ingest. Messages below
+// the current level cost one comparison, and the Supplier overloads are not
+// evaluated at all in that case. When the queue is full, entries are dropped
+// and counted instead of blocking.
+// The level comes from -Dignite.log.level (default INFO) or setLevel().
+public final class Log {
+
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR }
+
+    private static final int QUEUE_CAPACITY = 16_384;
+    private static final int MAX_DRAIN = 512;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static volatile Level level = parseLevel(System.getProperty("ignite.log.level"));
+
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong droppedCount = new AtomicLong();
+
+    private static final class Entry {
+        final Level level;
+        final LocalTime time;
+        final String thread;
+        final String message;
+        final Throwable error;
+
+        Entry(Level level, String message, Throwable error) {
+            this.level = level;
+            this.time = LocalTime.now();
+            this.thread = Thread.currentThread().getName();
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    static {
+        Thread appender = new Thread(Log::appendLoop, "log-appender");
+        appender.setDaemon(true);
+        appender.start();
+
+        // Print whatever is still queued when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drainRemaining, "log-flush"));
+    }
+
+    private Log() {}
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static boolean isEnabled(Level check) {
+        return check.compareTo(level) >= 0;
+    }
+
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public static void trace(Supplier<String> message) {
+        if (isEnabled(Level.TRACE)) enqueue(Level.TRACE, message.get(), null);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) enqueue(Level.DEBUG, message.get(), null);
+    }
+
+    public static void info(String message) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, message, null);
+    }
+
+    public static void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, message.get(), null);
+    }
+
+    public static void warn(String message) {
+        if (isEnabled(Level.WARN)) enqueue(Level.WARN, message, null);
+    }
+
+    public static void error(String message) {
+        if (isEnabled(Level.ERROR)) enqueue(Level.ERROR, message, null);
+    }
+
+    public static void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) enqueue(Level.ERROR, message, error);
+    }
+
+    private static void enqueue(Level entryLevel, String message, Throwable error) {
+        if (!queue.offer(new Entry(entryLevel, message, error))) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private static void appendLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_DRAIN);
+        while (true) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_DRAIN - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static synchronized void write(List<Entry> batch) {
+        StringBuilder out = new StringBuilder();
+        StringBuilder err = new StringBuilder();
+
+        long dropped = droppedCount.getAndSet(0);
+        if (dropped > 0) {
+            err.append("⚠️ Log queue full, dropped ").append(dropped).append(" entries\n");
+        }
+
+        for (Entry entry : batch) {
+            StringBuilder target = entry.level.compareTo(Level.WARN) >= 0 ? err : out;
+            target.append(TIME_FORMAT.format(entry.time))
+                    .append(' ').append(String.format("%-5s", entry.level))
+                    .append(" [").append(entry.thread).append("] ")
+                    .append(entry.message).append('\n');
+
+            if (entry.error != null) {
+                StringWriter trace = new StringWriter();
+                entry.error.printStackTrace(new PrintWriter(trace));
+                target.append(trace);
+            }
+        }
+
+        // One write per stream per batch instead of one synchronized println per line
+        if (out.length() > 0) System.out.print(out);
+        if (err.length() > 0) System.err.print(err);
+    }
+
+    private static void drainRemaining() {
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+        System.out.flush();
+        System.err.flush();
+    }
+
+    private static Level parseLevel(String value) {
+        if (value == null) return Level.INFO;
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
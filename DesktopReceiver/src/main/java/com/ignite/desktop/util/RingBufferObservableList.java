@@ -0,0 +1,277 @@
+package com.ignite.desktop.util;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Observable list over a fixed-capacity circular array.
+// Inserting or removing at either end is O(1) per element, so newest-first
+// lists can take add(0, x) without shifting every row. When full, inserting
+// at the front evicts from the back and vice versa; evicted rows are reported
+// as ordinary removals so FilteredList/TableView stay in sync.
+public class RingBufferObservableList<E> extends ObservableListBase<E> {
+
+    private Object[] elements;
+    private int head = 0;
+    private int size = 0;
+
+    public RingBufferObservableList(int capacity) {
+        elements = new Object[Math.max(1, capacity)];
+    }
+
+    public int getCapacity() {
+        return elements.length;
+    }
+
+    // Shrinking drops rows from the back.
+    public void setCapacity(int capacity) {
+        int newCapacity = Math.max(1, capacity);
+        if (newCapacity == elements.length) return;
+
+        beginChange();
+        try {
+            if (size > newCapacity) {
+                nextRemove(newCapacity, removeTail(size - newCapacity));
+            }
+            Object[] resized = new Object[newCapacity];
+            for (int i = 0; i < size; i++) {
+                resized[i] = elements[physical(i)];
+            }
+            elements = resized;
+            head = 0;
+            modCount++;
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        return (E) elements[physical(index)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index, size);
+        int slot = physical(index);
+        @SuppressWarnings("unchecked")
+        E old = (E) elements[slot];
+        elements[slot] = element;
+
+        beginChange();
+        try {
+            nextSet(index, old);
+        } finally {
+            endChange();
+        }
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        addAll(index, Collections.singletonList(element));
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size, c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        checkIndex(index, size + 1);
+        if (c.isEmpty()) return false;
+
+        List<E> toAdd = new ArrayList<>(c);
+        int capacity = elements.length;
+
+        beginChange();
+        try {
+            if (index == 0) {
+                // Front insert: make room by evicting from the back
+                if (toAdd.size() > capacity) {
+                    toAdd = toAdd.subList(0, capacity);
+                }
+                int overflow = size + toAdd.size() - capacity;
+                if (overflow > 0) {
+                    nextRemove(size - overflow, removeTail(overflow));
+                }
+                for (int i = toAdd.size() - 1; i >= 0; i--) {
+                    head = (head - 1 + capacity) % capacity;
+                    elements[head] = toAdd.get(i);
+                }
+                size += toAdd.size();
+                nextAdd(0, toAdd.size());
+            } else if (index == size) {
+                // Back insert: make room by evicting from the front
+                if (toAdd.size() > capacity) {
+                    toAdd = toAdd.subList(toAdd.size() - capacity, toAdd.size());
+                }
+                int overflow = size + toAdd.size() - capacity;
+                if (overflow > 0) {
+                    nextRemove(0, removeHead(overflow));
+                }
+                for (E element : toAdd) {
+                    elements[physical(size)] = element;
+                    size++;
+                }
+                nextAdd(size - toAdd.size(), size);
+            } else {
+                // Middle insert is rare here; rebuild the tail and report it as replaced
+                List<E> tail = removeTail(size - index);
+                List<E> rebuilt = new ArrayList<>(toAdd);
+                rebuilt.addAll(tail);
+                int room = capacity - size;
+                for (int i = 0; i < rebuilt.size() && i < room; i++) {
+                    elements[physical(size)] = rebuilt.get(i);
+                    size++;
+                }
+                nextRemove(index, tail);
+                nextAdd(index, size);
+            }
+            modCount++;
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size);
+        E removed = get(index);
+
+        beginChange();
+        try {
+            if (index == 0) {
+                removeHead(1);
+            } else if (index == size - 1) {
+                removeTail(1);
+            } else if (index < size / 2) {
+                // Shift the shorter side
+                for (int i = index; i > 0; i--) {
+                    elements[physical(i)] = elements[physical(i - 1)];
+                }
+                removeHead(1);
+            } else {
+                for (int i = index; i < size - 1; i++) {
+                    elements[physical(i)] = elements[physical(i + 1)];
+                }
+                removeTail(1);
+            }
+            nextRemove(index, removed);
+            modCount++;
+        } finally {
+            endChange();
+        }
+        return removed;
+    }
+
+    @Override
+    public void remove(int from, int to) {
+        checkIndex(from, size + 1);
+        checkIndex(to, size + 1);
+        if (from >= to) return;
+
+        beginChange();
+        try {
+            if (from == 0) {
+                nextRemove(0, removeHead(to));
+            } else if (to == size) {
+                nextRemove(from, removeTail(to - from));
+            } else {
+                List<E> tail = removeTail(size - from);
+                List<E> removed = new ArrayList<>(tail.subList(0, to - from));
+                for (E element : tail.subList(to - from, tail.size())) {
+                    elements[physical(size)] = element;
+                    size++;
+                }
+                nextRemove(from, removed);
+            }
+            modCount++;
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        remove(fromIndex, toIndex);
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) return;
+        remove(0, size);
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends E> col) {
+        beginChange();
+        try {
+            if (size > 0) {
+                nextRemove(0, removeHead(size));
+            }
+            head = 0;
+            for (E element : col) {
+                if (size == elements.length) break;
+                elements[size++] = element;
+            }
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            modCount++;
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    private List<E> removeHead(int count) {
+        List<E> removed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            removed.add(takeSlot(head));
+            head = (head + 1) % elements.length;
+        }
+        size -= count;
+        if (size == 0) head = 0;
+        return removed;
+    }
+
+    private List<E> removeTail(int count) {
+        List<E> removed = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++) {
+            removed.add(takeSlot(physical(i)));
+        }
+        size -= count;
+        if (size == 0) head = 0;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E takeSlot(int slot) {
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        return element;
+    }
+
+    private int physical(int index) {
+        return (head + index) % elements.length;
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
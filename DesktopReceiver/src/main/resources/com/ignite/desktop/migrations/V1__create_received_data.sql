@@ -0,0 +1,17 @@
+-- Consolidated baseline for new installs. Earlier builds created a narrower
+-- table (data_content VARCHAR(500), no client_msg_id, unique key or FULLTEXT
+-- index); such a table gets the missing column and indexes in code and is
+-- recorded as version 1 without running this script. V3 widens its column.
+CREATE TABLE IF NOT EXISTS received_data (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    data_content TEXT NOT NULL,
+    sender_ip VARCHAR(50),
+    received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    status VARCHAR(20) DEFAULT 'RECEIVED',
+    client_msg_id VARCHAR(64) NULL,
+    UNIQUE KEY uk_client_msg_id (client_msg_id),
+    INDEX idx_received_at (received_at),
+    INDEX idx_sender_ip (sender_ip),
+    INDEX idx_status (status),
+    FULLTEXT INDEX ft_data_content (data_content)
+);
@@ -0,0 +1,12 @@
+-- status becomes a one-byte ENUM and received_at can no longer be NULL.
+-- Status filters page by received_at, so their index carries it as well.
+UPDATE received_data SET status = 'RECEIVED'
+    WHERE status IS NULL OR status NOT IN ('RECEIVED', 'SAVED', 'ERROR', 'NOT_SAVED');
+
+UPDATE received_data SET received_at = CURRENT_TIMESTAMP WHERE received_at IS NULL;
+
+ALTER TABLE received_data
+    MODIFY received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    MODIFY status ENUM('RECEIVED', 'SAVED', 'ERROR', 'NOT_SAVED') NOT NULL DEFAULT 'RECEIVED',
+    DROP INDEX idx_status,
+    ADD INDEX idx_status_received_at (status, received_at);
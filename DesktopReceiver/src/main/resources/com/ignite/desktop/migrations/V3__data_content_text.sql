@@ -0,0 +1,4 @@
+-- Builds before schema versions created data_content as VARCHAR(500), and
+-- the V1 baseline leaves column types alone. Tables created from V1 are
+-- already TEXT, for which this changes nothing.
+ALTER TABLE received_data MODIFY data_content TEXT NOT NULL;
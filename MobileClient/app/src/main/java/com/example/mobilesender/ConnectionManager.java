@@ -0,0 +1,360 @@
+package com.example.mobilesender;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Long-lived connection to the desktop receiver.
+// Callers only offer() messages, which appends them to the durable Outbox; one
+// worker thread keeps a PipelinedSender connected and replays the outbox over
+// it in batches, oldest first. A message leaves the outbox only once the
+// desktop acks it, or has rejected it MAX_REJECTIONS times, so messages
+// survive lost Wi-Fi, app restarts and a desktop without its database. After
+// a reconnect, replay starts again from the oldest message that is still
+// pending, and no outbox entry is sent twice on the same connection. Lost
+// connections are retried with exponential backoff, or right away when
+// retryNow() reports that the network is back.
+// An idle connection is kept alive with pings; if the server stays silent for
+// keepAliveTimeout the connection is treated as dead and replaced.
+// When the desktop answers BUSY it is overloaded: the connection is dropped and
+// retried with a growing backoff that is only reset once messages are acked
+// again. Busy messages are resent on the next connection, so under overload
+// they may arrive after newer ones.
+// A NAK short of the limit is handled the same way.
+// With a message id prefix set, every message carries "<prefix>-<outbox id>" as
+// its client message id, so a resend whose first ack was lost is stored only
+// once on the desktop. The prefix must be unique per install.
+// Plain Java, so it can be unit tested off-device.
+public class ConnectionManager {
+
+    public enum State { DISCONNECTED, CONNECTING, CONNECTED, STOPPED }
+
+    public interface Listener {
+        void onStateChanged(State state, String detail);
+
+        void onDelivered(int count, int queued, int inFlight);
+
+        // The desktop received the message but could not save it
+        void onRejected(String message);
+    }
+
+    private static final int REPLAY_BATCH_SIZE = 64;
+    // NAKs a message may collect before it is given up on
+    static final int MAX_REJECTIONS = 3;
+
+    private final String host;
+    private final int port;
+    private final boolean binaryFraming;
+    private final Outbox outbox;
+    private final Listener listener;
+
+    private int connectTimeoutMillis = 5000;
+    private int windowSize = 32;
+    private long keepAliveIntervalMillis = 15_000;
+    private long keepAliveTimeoutMillis = 45_000;
+    private volatile String messageIdPrefix;
+    private final Backoff backoff = new Backoff(500, 30_000);
+    private final Object retrySignal = new Object();
+    // NAK count per outbox id, until the message is acked or given up on
+    private final Map<Long, Integer> rejections = new HashMap<>();
+
+    private volatile State state = State.DISCONNECTED;
+    private volatile boolean running = false;
+    private volatile PipelinedSender sender;
+    // Set by a BUSY reply, cleared by the next ack
+    private volatile boolean serverBusy = false;
+    private Thread worker;
+
+    public ConnectionManager(String host, int port, boolean binaryFraming, Outbox outbox, Listener listener) {
+        this.host = host;
+        this.port = port;
+        this.binaryFraming = binaryFraming;
+        this.outbox = outbox;
+        this.listener = listener;
+    }
+
+    public void setConnectTimeout(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    public void setKeepAlive(long intervalMillis, long timeoutMillis) {
+        this.keepAliveIntervalMillis = Math.max(1, intervalMillis);
+        this.keepAliveTimeoutMillis = Math.max(intervalMillis, timeoutMillis);
+    }
+
+    // Null (the default) sends messages without client message ids.
+    public void setMessageIdPrefix(String messageIdPrefix) {
+        this.messageIdPrefix = messageIdPrefix;
+    }
+
+    public void setBackoff(long initialMillis, long maxMillis) {
+        backoff.configure(initialMillis, maxMillis);
+    }
+
+    public boolean isFor(String host, int port, boolean binaryFraming) {
+        return this.host.equals(host) && this.port == port && this.binaryFraming == binaryFraming;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::run, "connection-manager");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Unacknowledged messages stay in the outbox for the next start().
+    public void stop() {
+        Thread toJoin;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            toJoin = worker;
+        }
+
+        PipelinedSender current = sender;
+        if (current != null) {
+            current.close();
+        }
+        toJoin.interrupt();
+        try {
+            toJoin.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        setState(State.STOPPED, null);
+    }
+
+    // A local append only. Returns false when the outbox is full.
+    public boolean offer(String message) throws IOException {
+        return outbox.append(message) > 0;
+    }
+
+    // Skips the current backoff wait, e.g. when the network comes back.
+    public void retryNow() {
+        backoff.reset();
+        synchronized (retrySignal) {
+            retrySignal.notifyAll();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Messages waiting in the outbox, including those in flight
+    public int getQueuedCount() {
+        return outbox.size();
+    }
+
+    public int getInFlightCount() {
+        PipelinedSender current = sender;
+        return current != null ? current.getInFlightCount() : 0;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                connect();
+                stream();
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                setState(State.DISCONNECTED, e.getMessage());
+            }
+
+            try {
+                closeSender();
+                if (running) {
+                    long delay = backoff.nextDelayMillis();
+                    synchronized (retrySignal) {
+                        retrySignal.wait(delay);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        PipelinedSender current = sender;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void connect() throws IOException {
+        setState(State.CONNECTING, host + ":" + port);
+        PipelinedSender next = new PipelinedSender(host, port, windowSize, binaryFraming, senderListener);
+        next.connect(connectTimeoutMillis);
+        sender = next;
+        if (!serverBusy) {
+            backoff.reset();
+        }
+        setState(State.CONNECTED, host + ":" + port);
+    }
+
+    // Replays the outbox until the connection breaks; only returns by throwing.
+    private void stream() throws IOException, InterruptedException {
+        PipelinedSender current = sender;
+        // Highest outbox id already written on this connection
+        long cursor = 0;
+        long lastPing = System.currentTimeMillis();
+        String idPrefix = messageIdPrefix;
+
+        while (running) {
+            if (!current.isConnected()) {
+                throw new IOException(serverBusy ? "Server busy" : "Connection closed by server");
+            }
+
+            List<Outbox.Entry> batch = outbox.pendingAfter(cursor, REPLAY_BATCH_SIZE);
+            if (!batch.isEmpty()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    Outbox.Entry entry = batch.get(i);
+                    String clientMsgId = idPrefix != null ? idPrefix + "-" + entry.id : null;
+                    current.send(entry.message, clientMsgId, entry.id, keepAliveTimeoutMillis, i == batch.size() - 1);
+                    cursor = entry.id;
+                }
+                continue;
+            }
+
+            if (outbox.awaitPendingAfter(cursor, Math.min(keepAliveIntervalMillis, 1000))) {
+                continue;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - current.getLastInboundMillis() > keepAliveTimeoutMillis) {
+                current.close();
+                throw new IOException("No response from server for " + keepAliveTimeoutMillis + " ms");
+            }
+            if (now - lastPing >= keepAliveIntervalMillis) {
+                current.ping();
+                lastPing = now;
+            }
+        }
+        throw new InterruptedException();
+    }
+
+    // Whatever was in flight is still in the outbox; the next connection resends it.
+    private void closeSender() throws InterruptedException {
+        PipelinedSender current = sender;
+        if (current == null) return;
+
+        current.close();
+        current.awaitClosed(connectTimeoutMillis);
+        sender = null;
+    }
+
+    private void setState(State newState, String detail) {
+        state = newState;
+        listener.onStateChanged(newState, detail);
+    }
+
+    private void markDelivered(List<Long> ids) {
+        try {
+            outbox.markDelivered(ids);
+        } catch (IOException e) {
+            // Not fatal: the messages stay pending and are sent again later
+            listener.onStateChanged(state, "Outbox write failed: " + e.getMessage());
+        }
+    }
+
+    private final PipelinedSender.Listener senderListener = new PipelinedSender.Listener() {
+        @Override
+        public void onAcked(long upToSequence, List<Long> confirmedTags, int inFlight) {
+            if (serverBusy) {
+                serverBusy = false;
+                backoff.reset();
+            }
+            synchronized (rejections) {
+                if (!rejections.isEmpty()) {
+                    rejections.keySet().removeAll(confirmedTags);
+                }
+            }
+            markDelivered(confirmedTags);
+            listener.onDelivered(confirmedTags.size(), outbox.size(), inFlight);
+        }
+
+        @Override
+        public void onNacked(long sequence, String message, long tag) {
+            int count;
+            synchronized (rejections) {
+                count = rejections.merge(tag, 1, Integer::sum);
+                if (count >= MAX_REJECTIONS) {
+                    rejections.remove(tag);
+                }
+            }
+            if (count < MAX_REJECTIONS) {
+                // Perhaps a failure on the desktop that passes; treated like
+                // BUSY, so the message is sent again after a backoff
+                serverBusy = true;
+                PipelinedSender current = sender;
+                if (current != null) {
+                    current.close();
+                }
+                return;
+            }
+
+            List<Long> rejected = new ArrayList<>(1);
+            rejected.add(tag);
+            markDelivered(rejected);
+            listener.onRejected(message);
+        }
+
+        @Override
+        public void onBusy(long sequence, String message, long tag) {
+            // The message stays in the outbox; reconnecting after a backoff
+            // replays it and gives the desktop time to catch up
+            serverBusy = true;
+            PipelinedSender current = sender;
+            if (current != null) {
+                current.close();
+            }
+        }
+
+        @Override
+        public void onDisconnected(List<String> unacked, Exception cause) {
+            // Nothing to do: unacked messages were never removed from the outbox
+        }
+    };
+
+    // Exponential backoff with jitter: initial, 2x, 4x ... capped at max.
+    static final class Backoff {
+
+        private long initialMillis;
+        private long maxMillis;
+        private long currentMillis;
+
+        Backoff(long initialMillis, long maxMillis) {
+            configure(initialMillis, maxMillis);
+        }
+
+        synchronized void configure(long initialMillis, long maxMillis) {
+            this.initialMillis = Math.max(1, initialMillis);
+            this.maxMillis = Math.max(this.initialMillis, maxMillis);
+            this.currentMillis = 0;
+        }
+
+        synchronized void reset() {
+            currentMillis = 0;
+        }
+
+        // Base delay for the next attempt, without jitter
+        synchronized long peekBaseMillis() {
+            return currentMillis == 0 ? initialMillis : Math.min(currentMillis * 2, maxMillis);
+        }
+
+        synchronized long nextDelayMillis() {
+            currentMillis = peekBaseMillis();
+            // Up to 20% jitter so many phones do not reconnect in lockstep
+            long jitter = currentMillis / 5;
+            return currentMillis - jitter + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.mobilesender;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Binary framing understood by the desktop receiver (same layout as its FrameCodec):
+//   [0xA5 magic][type: 1 byte][length: 4 bytes, big-endian][payload: length bytes]
+// Sequenced types start their payload with an 8-byte sequence number; the rest
+// is UTF-8 text, which may contain newlines. TYPE_DATA_ID puts
+// [id length: 1 byte][id: UTF-8] between the sequence number and the text.
+public final class FrameCodec {
+
+    public static final byte MAGIC = (byte) 0xA5;
+    public static final int HEADER_SIZE = 6;
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    public static final byte TYPE_DATA = 0x01;
+    public static final byte TYPE_DATA_SEQ = 0x02;
+    public static final byte TYPE_PING = 0x03;
+    public static final byte TYPE_DATA_ID = 0x04;
+    public static final byte TYPE_REPLY = 0x10;
+    public static final byte TYPE_ACK = 0x11;
+    public static final byte TYPE_NAK = 0x12;
+    public static final byte TYPE_PONG = 0x13;
+    public static final byte TYPE_BUSY = 0x14;
+    public static final byte TYPE_ERROR = 0x1F;
+
+    // Longest client message id the desktop accepts
+    public static final int MAX_CLIENT_MSG_ID_LENGTH = 64;
+
+    private FrameCodec() {}
+
+    public static boolean hasSequence(byte type) {
+        return type == TYPE_DATA_SEQ || type == TYPE_DATA_ID
+                || type == TYPE_ACK || type == TYPE_NAK || type == TYPE_BUSY;
+    }
+
+    public static byte[] encode(byte type, long sequence, String text) throws IOException {
+        return encode(type, sequence, null, text);
+    }
+
+    // clientMsgId is only written for TYPE_DATA_ID.
+    public static byte[] encode(byte type, long sequence, String clientMsgId, String text) throws IOException {
+        byte[] body = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] id = type == TYPE_DATA_ID ? clientMsgId.getBytes(StandardCharsets.UTF_8) : null;
+        if (id != null && (id.length == 0 || id.length > MAX_CLIENT_MSG_ID_LENGTH)) {
+            throw new IOException("Bad client message id length " + id.length);
+        }
+
+        int length = body.length + (hasSequence(type) ? 8 : 0) + (id != null ? 1 + id.length : 0);
+        if (length > MAX_FRAME_SIZE) {
+            throw new IOException("Message too large (" + length + " bytes, max " + MAX_FRAME_SIZE + ")");
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + length);
+        frame.put(MAGIC).put(type).putInt(length);
+        if (hasSequence(type)) {
+            frame.putLong(sequence);
+        }
+        if (id != null) {
+            frame.put((byte) id.length).put(id);
+        }
+        frame.put(body);
+        return frame.array();
+    }
+
+    public static final class Frame {
+        public final byte type;
+        public final long sequence;   // -1 for unsequenced types
+        public final String text;
+
+        Frame(byte type, long sequence, String text) {
+            this.type = type;
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+    // Reads frames from a stream, decoding into buffers reused across frames.
+    public static final class Reader {
+
+        private final DataInputStream input;
+        private byte[] buffer = new byte[256];
+        private CharBuffer chars = CharBuffer.allocate(256);
+        private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        public Reader(InputStream input) {
+            this.input = new DataInputStream(input);
+        }
+
+        // Returns null at a clean end of stream.
+        public Frame read() throws IOException {
+            int magic = input.read();
+            if (magic < 0) return null;
+            if ((byte) magic != MAGIC) {
+                throw new IOException("Bad frame magic");
+            }
+
+            byte type;
+            int length;
+            try {
+                type = input.readByte();
+                length = input.readInt();
+            } catch (EOFException e) {
+                throw new IOException("Truncated frame header");
+            }
+
+            int minLength = hasSequence(type) ? 8 : 0;
+            if (length < minLength || length > MAX_FRAME_SIZE) {
+                throw new IOException("Bad frame length " + length);
+            }
+
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            input.readFully(buffer, 0, length);
+
+            ByteBuffer payload = ByteBuffer.wrap(buffer, 0, length);
+            long sequence = hasSequence(type) ? payload.getLong() : -1;
+
+            if (chars.capacity() < payload.remaining()) {
+                chars = CharBuffer.allocate(Math.max(payload.remaining(), chars.capacity() * 2));
+            }
+            chars.clear();
+            utf8.reset();
+            utf8.decode(payload, chars, true);
+            utf8.flush(chars);
+            chars.flip();
+
+            return new Frame(type, sequence, chars.toString());
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.example.mobilesender;
 
 import android.animation.ObjectAnimator;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.os.Bundle;
@@ -24,14 +27,19 @@ import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -60,6 +68,30 @@ public class MainActivity extends AppCompatActivity {
     private static final String DEFAULT_MESSAGE = "Data Send";
     private static final int CONNECTION_TIMEOUT = 5000;
 
+    // Stream messages over one long-lived connection (ConnectionManager, v2
+    // protocol) with up to PIPELINE_WINDOW unacknowledged; the desktop acks them
+    // once they are saved. false = one socket per message.
+    private static final boolean USE_PERSISTENT_CONNECTION = true;
+    private static final int PIPELINE_WINDOW = 32;
+    // Length-prefixed binary frames (FrameCodec) instead of text lines; the
+    // desktop detects the framing per connection
+    private static final boolean USE_BINARY_FRAMING = true;
+
+    // Unsent messages are kept on disk and replayed when the desktop is reachable
+    private static final String OUTBOX_FILE = "outbox.log";
+    private static final long OUTBOX_MAX_BYTES = 4L * 1024 * 1024;
+
+    // Random per install; with the outbox id it makes each message's client
+    // message id, which the desktop uses to drop resent duplicates
+    private static final String PREFS_NAME = "mobile_sender";
+    private static final String PREF_INSTALL_ID = "install_id";
+
+    // Both are created and replaced on executorService only
+    private Outbox outbox;
+    private volatile ConnectionManager connectionManager;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private int messagesDeliveredCount = 0;
+
     private static final String COLOR_PRIMARY = "#2563eb";
     private static final String COLOR_ACCENT = "#0891b2";
     private static final String COLOR_SUCCESS = "#22c55e";
@@ -86,6 +118,8 @@ public class MainActivity extends AppCompatActivity {
         setupDefaultValues();
         displayDeviceIp();
         setupClickListeners();
+        registerNetworkCallback();
+        resumePendingOutbox();
         showWelcomeAnimation();
         updateStatusWithColor("⚡ IGNITE Ready", COLOR_INFO_LIGHT, COLOR_PRIMARY);
     }
@@ -99,6 +133,21 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (networkCallback != null) {
+            ConnectivityManager connectivity =
+                    (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivity != null) {
+                connectivity.unregisterNetworkCallback(networkCallback);
+            }
+        }
+        if (connectionManager != null) {
+            connectionManager.stop();
+        }
+        if (outbox != null) {
+            try {
+                outbox.close();
+            } catch (IOException ignored) {}
+        }
         if (executorService != null && !executorService.isShutdown()) {
             executorService.shutdown();
         }
@@ -254,6 +303,11 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        if (USE_PERSISTENT_CONNECTION) {
+            streamMessage(ipAddress, port, message);
+            return;
+        }
+
         isSending = true;
         setLoadingState(true);
         updateStatusWithColor("📡 Connecting to " + ipAddress + ":" + port + "...",
@@ -272,21 +326,35 @@ public class MainActivity extends AppCompatActivity {
                 socket.setSoTimeout(CONNECTION_TIMEOUT);
 
                 OutputStream outputStream = socket.getOutputStream();
-                PrintWriter writer = new PrintWriter(outputStream, true);
-                writer.println(finalMessage);
+                String response = null;
 
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(socket.getInputStream()));
+                if (USE_BINARY_FRAMING) {
+                    outputStream.write(FrameCodec.encode(FrameCodec.TYPE_DATA, -1, finalMessage));
+                    outputStream.flush();
 
-                String response = null;
-                try {
-                    response = reader.readLine();
-                } catch (Exception e) {
-                    // No response is acceptable
+                    try {
+                        FrameCodec.Frame reply = new FrameCodec.Reader(socket.getInputStream()).read();
+                        if (reply != null) {
+                            response = reply.text;
+                        }
+                    } catch (Exception e) {
+                        // No response is acceptable
+                    }
+                } else {
+                    PrintWriter writer = new PrintWriter(
+                            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), true);
+                    writer.println(finalMessage);
+
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+                    try {
+                        response = reader.readLine();
+                    } catch (Exception e) {
+                        // No response is acceptable
+                    }
                 }
 
-                writer.close();
-                reader.close();
                 socket.close();
 
                 long duration = System.currentTimeMillis() - startTime;
@@ -323,6 +391,179 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    // Appends the message to the outbox; the connection manager delivers it
+    // whenever the desktop is reachable. Never blocks the UI.
+    private void streamMessage(String ipAddress, int port, String message) {
+        executorService.execute(() -> {
+            try {
+                ConnectionManager manager = ensureConnectionManager(ipAddress, port);
+                if (!manager.offer(message)) {
+                    handleIgniteError("📦 Outbox full",
+                            "Too many unsent messages are stored. Reconnect to the desktop to free space.");
+                    return;
+                }
+
+                int queued = manager.getQueuedCount();
+                int inFlight = manager.getInFlightCount();
+                mainHandler.post(() -> {
+                    messagesSentCount++;
+                    lastSentTime = System.currentTimeMillis();
+                    onMessageQueued(message, queued, inFlight);
+                });
+            } catch (IOException e) {
+                handleIgniteError("💾 Outbox error", e.getMessage());
+            }
+        });
+    }
+
+    // Runs on executorService
+    private ConnectionManager ensureConnectionManager(String ipAddress, int port) throws IOException {
+        if (outbox == null) {
+            outbox = new Outbox(new File(getFilesDir(), OUTBOX_FILE), OUTBOX_MAX_BYTES);
+        }
+
+        ConnectionManager manager = connectionManager;
+        if (manager == null || !manager.isFor(ipAddress, port, USE_BINARY_FRAMING)) {
+            if (manager != null) {
+                manager.stop();
+            }
+            manager = new ConnectionManager(ipAddress, port, USE_BINARY_FRAMING, outbox, connectionListener);
+            manager.setConnectTimeout(CONNECTION_TIMEOUT);
+            manager.setWindowSize(PIPELINE_WINDOW);
+            manager.setMessageIdPrefix(getInstallId());
+            manager.start();
+            connectionManager = manager;
+        }
+        return manager;
+    }
+
+    private String getInstallId() {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String installId = prefs.getString(PREF_INSTALL_ID, null);
+        if (installId == null) {
+            installId = UUID.randomUUID().toString().replace("-", "");
+            prefs.edit().putString(PREF_INSTALL_ID, installId).commit();
+        }
+        return installId;
+    }
+
+    // Messages left over from an earlier session are replayed to the configured desktop
+    private void resumePendingOutbox() {
+        if (!USE_PERSISTENT_CONNECTION) return;
+
+        String ipAddress = etIpAddress.getText().toString().trim();
+        int port;
+        try {
+            port = Integer.parseInt(etPort.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (ipAddress.isEmpty()) return;
+
+        executorService.execute(() -> {
+            try {
+                File file = new File(getFilesDir(), OUTBOX_FILE);
+                if (outbox == null && !file.exists()) return;
+                if (outbox == null) {
+                    outbox = new Outbox(file, OUTBOX_MAX_BYTES);
+                }
+
+                int pending = outbox.size();
+                if (pending == 0) return;
+
+                ensureConnectionManager(ipAddress, port);
+                mainHandler.post(() -> updateStatusWithColor(
+                        "📦 Replaying " + pending + " stored message(s)...",
+                        COLOR_INFO_LIGHT, COLOR_PRIMARY));
+            } catch (IOException e) {
+                handleIgniteError("💾 Outbox error", e.getMessage());
+            }
+        });
+    }
+
+    // Reconnect immediately when a network comes back instead of waiting out the backoff
+    private void registerNetworkCallback() {
+        ConnectivityManager connectivity =
+                (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) return;
+
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                ConnectionManager manager = connectionManager;
+                if (manager != null) {
+                    manager.retryNow();
+                }
+            }
+        };
+        connectivity.registerDefaultNetworkCallback(networkCallback);
+    }
+
+    private void onMessageQueued(String message, int queued, int inFlight) {
+        ConnectionManager manager = connectionManager;
+        if (manager != null && manager.getState() == ConnectionManager.State.CONNECTED) {
+            updateStatusWithColor("📤 Streaming • " + queued + " queued • " + inFlight + " in flight",
+                    COLOR_INFO_LIGHT, COLOR_PRIMARY);
+        } else {
+            updateStatusWithColor("📦 Saved to outbox • " + queued + " waiting for desktop",
+                    COLOR_WARNING_LIGHT, COLOR_WARNING);
+        }
+
+        showIgniteToast("📤 Queued: " + truncateText(message, 30));
+
+        if (etCustomMessage.getText().toString().trim().equals(message) &&
+                !message.equals(DEFAULT_MESSAGE)) {
+            etCustomMessage.setText("");
+        }
+    }
+
+    // Called on the manager's threads
+    private final ConnectionManager.Listener connectionListener = new ConnectionManager.Listener() {
+        @Override
+        public void onStateChanged(ConnectionManager.State state, String detail) {
+            mainHandler.post(() -> {
+                switch (state) {
+                    case CONNECTING:
+                        updateStatusWithColor("📡 Connecting to " + detail + "...",
+                                COLOR_INFO_LIGHT, COLOR_PRIMARY);
+                        break;
+                    case CONNECTED:
+                        updateStatusWithColor("🔗 Connected to " + detail,
+                                COLOR_SUCCESS_LIGHT, COLOR_SUCCESS);
+                        break;
+                    case DISCONNECTED:
+                        updateStatusWithColor("⚠️ Connection lost, retrying...\n" + (detail != null ? detail : ""),
+                                COLOR_WARNING_LIGHT, COLOR_WARNING);
+                        break;
+                    default:
+                        break;
+                }
+            });
+        }
+
+        @Override
+        public void onDelivered(int count, int queued, int inFlight) {
+            mainHandler.post(() -> {
+                messagesDeliveredCount += count;
+                updateStatusWithColor("✅ Saved on desktop • " + queued + " queued • " + inFlight + " in flight",
+                        COLOR_SUCCESS_LIGHT, COLOR_SUCCESS);
+
+                SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+                tvLastSent.setText(String.format(Locale.US,
+                        "📤 Last ack %s • Delivered: %d / %d",
+                        sdf.format(new Date()), messagesDeliveredCount, messagesSentCount));
+                tvLastSent.setTextColor(Color.parseColor("#64748b"));
+                tvLastSent.setVisibility(View.VISIBLE);
+            });
+        }
+
+        @Override
+        public void onRejected(String message) {
+            handleIgniteError("⚠️ Not saved",
+                    "Desktop could not save: " + truncateText(message, 30));
+        }
+    };
+
     private void onSendSuccess(String message, String response, long duration) {
         String successMsg = "✅ Message sent successfully!";
         if (response != null && !response.isEmpty()) {
@@ -0,0 +1,283 @@
+package com.example.mobilesender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+// Durable outbox for messages that have not reached the desktop yet.
+// The file is append-only: sending a message appends an 'M' record, and a
+// delivered message appends a 'D' record with its id. On open the log is
+// replayed to rebuild the pending set; a torn record at the tail (app killed
+// mid-write) is cut off. When most of the file is delivered records, it is
+// compacted by rewriting the pending messages to a new file and renaming it
+// over the old one. A compacted file starts with an 'S' record holding the
+// next id, so ids stay unique even when nothing was pending.
+//
+// Ids increase strictly and are never reused, so they double as the
+// message's identity on the wire. Disk use is capped: append() refuses new
+// messages instead of dropping older ones, so the order is always preserved.
+//
+// Appends are written but not fsync'd; they survive the app being killed, and
+// compaction and close() force the file to disk. Uses RandomAccessFile rather
+// than java.nio.file, which needs API 26.
+public class Outbox {
+
+    public static final class Entry {
+        public final long id;
+        public final String message;
+
+        Entry(long id, String message) {
+            this.id = id;
+            this.message = message;
+        }
+    }
+
+    private static final byte RECORD_MESSAGE = 'M';
+    private static final byte RECORD_DELIVERED = 'D';
+    private static final byte RECORD_NEXT_ID = 'S';
+    // type + id + length + crc, before the payload
+    private static final int MESSAGE_OVERHEAD = 1 + 8 + 4 + 4;
+    // Also the size of a next-id record
+    private static final int DELIVERED_SIZE = 1 + 8 + 4;
+    private static final int MAX_MESSAGE_BYTES = 64 * 1024;
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final File file;
+    private final long maxBytes;
+
+    private FileChannel channel;
+    private final TreeMap<Long, String> pending = new TreeMap<>();
+    private final Map<Long, Integer> recordSizes = new HashMap<>();
+    private long nextId = 1;
+    private long fileBytes = 0;
+    private long liveBytes = 0;
+    private final CRC32 crc = new CRC32();
+
+    public Outbox(File file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = Math.max(MIN_COMPACT_BYTES, maxBytes);
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        recover();
+    }
+
+    // Returns the new message's id, or -1 when the outbox is full.
+    public synchronized long append(String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        if (payload.length > MAX_MESSAGE_BYTES) {
+            throw new IOException("Message too large for outbox (" + payload.length + " bytes)");
+        }
+
+        int size = MESSAGE_OVERHEAD + payload.length;
+        if (liveBytes + size > maxBytes) {
+            return -1;
+        }
+        if (fileBytes + size > maxBytes) {
+            compact();
+        }
+
+        long id = nextId++;
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(RECORD_MESSAGE).putLong(id).putInt(payload.length).put(payload);
+        record.putInt(checksum(record.array(), 1, size - 5));
+        record.flip();
+        write(record);
+
+        pending.put(id, message);
+        recordSizes.put(id, size);
+        liveBytes += size;
+        notifyAll();
+        return id;
+    }
+
+    // Oldest pending messages with an id greater than afterId, in id order.
+    public synchronized List<Entry> pendingAfter(long afterId, int max) {
+        List<Entry> batch = new ArrayList<>(Math.min(max, pending.size()));
+        for (Map.Entry<Long, String> entry : pending.tailMap(afterId, false).entrySet()) {
+            if (batch.size() >= max) break;
+            batch.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        return batch;
+    }
+
+    // Waits up to timeoutMillis for a message newer than afterId.
+    public synchronized boolean awaitPendingAfter(long afterId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pending.higherKey(afterId) == null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    // Drops delivered (or rejected) messages; unknown ids are ignored, so
+    // repeated acks are harmless.
+    public synchronized void markDelivered(Collection<Long> ids) throws IOException {
+        List<Long> known = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (pending.containsKey(id)) known.add(id);
+        }
+        if (known.isEmpty()) return;
+
+        ByteBuffer records = ByteBuffer.allocate(known.size() * DELIVERED_SIZE);
+        for (long id : known) {
+            int start = records.position();
+            records.put(RECORD_DELIVERED).putLong(id);
+            records.putInt(checksum(records.array(), start + 1, 8));
+        }
+        records.flip();
+        write(records);
+
+        for (long id : known) {
+            pending.remove(id);
+            liveBytes -= recordSizes.remove(id);
+        }
+
+        if (fileBytes >= MIN_COMPACT_BYTES && liveBytes * 2 < fileBytes) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long getFileBytes() {
+        return fileBytes;
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        long position = fileBytes;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        fileBytes = position;
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(1 + 8 + 4);
+        long position = 0;
+
+        while (position < size) {
+            header.clear();
+            if (channel.read(header, position) < 1 + 8) break;
+            header.flip();
+            byte type = header.get();
+            long id = header.getLong();
+
+            if (type == RECORD_DELIVERED || type == RECORD_NEXT_ID) {
+                ByteBuffer record = ByteBuffer.allocate(DELIVERED_SIZE);
+                if (readFully(record, position) < DELIVERED_SIZE) break;
+                if (record.getInt(9) != checksum(record.array(), 1, 8)) break;
+
+                if (type == RECORD_NEXT_ID) {
+                    nextId = Math.max(nextId, id);
+                } else if (pending.remove(id) != null) {
+                    liveBytes -= recordSizes.remove(id);
+                }
+                position += DELIVERED_SIZE;
+            } else if (type == RECORD_MESSAGE) {
+                if (header.remaining() < 4) break;
+                int length = header.getInt();
+                if (length < 0 || length > MAX_MESSAGE_BYTES) break;
+
+                int recordSize = MESSAGE_OVERHEAD + length;
+                ByteBuffer record = ByteBuffer.allocate(recordSize);
+                if (readFully(record, position) < recordSize) break;
+                if (record.getInt(recordSize - 4) != checksum(record.array(), 1, recordSize - 5)) break;
+
+                pending.put(id, new String(record.array(), 1 + 8 + 4, length, StandardCharsets.UTF_8));
+                recordSizes.put(id, recordSize);
+                liveBytes += recordSize;
+                nextId = Math.max(nextId, id + 1);
+                position += recordSize;
+            } else {
+                break;
+            }
+        }
+
+        // Anything after the last good record is a torn write
+        if (position < size) {
+            channel.truncate(position);
+        }
+        fileBytes = position;
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    // Rewrites only the pending messages. The ids are kept, and nextId never goes back.
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".compact");
+        long written = 0;
+
+        try (RandomAccessFile raf = new RandomAccessFile(compacted, "rw")) {
+            raf.setLength(0);
+            FileChannel out = raf.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(DELIVERED_SIZE);
+            header.put(RECORD_NEXT_ID).putLong(nextId);
+            header.putInt(checksum(header.array(), 1, 8));
+            header.flip();
+            while (header.hasRemaining()) {
+                written += out.write(header);
+            }
+
+            for (Map.Entry<Long, String> entry : pending.entrySet()) {
+                byte[] payload = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                int size = MESSAGE_OVERHEAD + payload.length;
+                ByteBuffer record = ByteBuffer.allocate(size);
+                record.put(RECORD_MESSAGE).putLong(entry.getKey()).putInt(payload.length).put(payload);
+                record.putInt(checksum(record.array(), 1, size - 5));
+                record.flip();
+                while (record.hasRemaining()) {
+                    written += out.write(record);
+                }
+            }
+            out.force(true);
+        }
+
+        // rename() replaces the old log atomically; if it fails the old log stays valid
+        channel.close();
+        try {
+            if (!compacted.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+            fileBytes = written;
+            liveBytes = written - DELIVERED_SIZE;
+        } finally {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+    }
+
+    private int checksum(byte[] bytes, int offset, int length) {
+        crc.reset();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
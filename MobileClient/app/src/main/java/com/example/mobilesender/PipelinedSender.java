@@ -0,0 +1,317 @@
+package com.example.mobilesender;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// v2 (pipelined) client for the desktop receiver.
+// Keeps one connection open and up to windowSize messages in flight. Each
+// message goes out as "MSG2 <seq> <payload>"; the server answers with a
+// cumulative "ACK2 <n>" once everything up to n is saved, or "NAK2 <seq>" for
+// a message it could not save. "BUSY2 <seq>" means the desktop was overloaded
+// and did not store the message; it should be sent again later. With binary
+// framing the same exchange uses
+// FrameCodec frames, and payloads may contain newlines.
+// A message sent with a client message id goes out as
+// "MSG2I <seq> <id> <payload>" (or a TYPE_DATA_ID frame); the desktop stores
+// each id once, so resending after a lost ack cannot create a duplicate row.
+// Plain Java, so it does not depend on Android.
+public class PipelinedSender {
+
+    // Tags are opaque caller ids passed to send(), -1 when none was given
+    public interface Listener {
+        void onAcked(long upToSequence, List<Long> confirmedTags, int inFlight);
+
+        void onNacked(long sequence, String message, long tag);
+
+        // Not stored because the server is overloaded; the caller should resend later
+        void onBusy(long sequence, String message, long tag);
+
+        // unacked holds the messages that were sent but never confirmed
+        void onDisconnected(List<String> unacked, Exception cause);
+    }
+
+    private static final String MESSAGE_PREFIX = "MSG2 ";
+    private static final String ID_MESSAGE_PREFIX = "MSG2I ";
+    private static final String ACK_PREFIX = "ACK2 ";
+    private static final String NAK_PREFIX = "NAK2 ";
+    private static final String BUSY_PREFIX = "BUSY2 ";
+    private static final String PING_LINE = "PING2\n";
+
+    private final String host;
+    private final int port;
+    private final int windowSize;
+    private final boolean binaryFraming;
+    private final Listener listener;
+
+    private final Semaphore window;
+    private final NavigableMap<Long, Pending> unacked = new ConcurrentSkipListMap<>();
+
+    private static final class Pending {
+        final String message;
+        final long tag;
+
+        Pending(String message, long tag) {
+            this.message = message;
+            this.tag = tag;
+        }
+    }
+
+    private Socket socket;
+    private OutputStream output;
+    private Thread readerThread;
+    private long nextSequence = 1;
+    private volatile boolean connected = false;
+    private volatile long lastInboundMillis;
+
+    public PipelinedSender(String host, int port, int windowSize, boolean binaryFraming, Listener listener) {
+        this.host = host;
+        this.port = port;
+        this.windowSize = Math.max(1, windowSize);
+        this.binaryFraming = binaryFraming;
+        this.listener = listener;
+        this.window = new Semaphore(this.windowSize);
+    }
+
+    public synchronized void connect(int timeoutMillis) throws IOException {
+        if (connected) return;
+
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        output = new BufferedOutputStream(socket.getOutputStream());
+        connected = true;
+        lastInboundMillis = System.currentTimeMillis();
+
+        final Socket readerSocket = socket;
+        readerThread = new Thread(() -> readAcks(readerSocket), "pipelined-ack-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isFor(String host, int port, boolean binaryFraming) {
+        return this.host.equals(host) && this.port == port && this.binaryFraming == binaryFraming;
+    }
+
+    public int getInFlightCount() {
+        return unacked.size();
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!connected) return;
+        try {
+            output.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // When the server last sent anything (ack, nak or pong).
+    public long getLastInboundMillis() {
+        return lastInboundMillis;
+    }
+
+    // Keep-alive; the server answers with a pong and stores nothing.
+    public synchronized void ping() throws IOException {
+        if (!connected) throw new IOException("Not connected");
+        try {
+            output.write(binaryFraming
+                    ? FrameCodec.encode(FrameCodec.TYPE_PING, -1, null)
+                    : PING_LINE.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Waits until the reader has delivered onDisconnected after close().
+    public void awaitClosed(long timeoutMillis) throws InterruptedException {
+        Thread reader = readerThread;
+        if (reader != null) {
+            reader.join(timeoutMillis);
+        }
+    }
+
+    // Blocks while the window is full; returns the sequence number of the message.
+    public long send(String message, long windowTimeoutMillis) throws IOException, InterruptedException {
+        return send(message, -1, windowTimeoutMillis, true);
+    }
+
+    // With flush=false the message may stay buffered until a later send or
+    // flush(), so a batch goes out in few writes. A full window always flushes
+    // first, otherwise the acks it waits for could never arrive.
+    public long send(String message, long tag, long windowTimeoutMillis, boolean flush)
+            throws IOException, InterruptedException {
+        return send(message, null, tag, windowTimeoutMillis, flush);
+    }
+
+    // clientMsgId may be null; it must not contain spaces.
+    public long send(String message, String clientMsgId, long tag, long windowTimeoutMillis, boolean flush)
+            throws IOException, InterruptedException {
+        if (!window.tryAcquire()) {
+            flush();
+            if (!window.tryAcquire(windowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Send window full (" + windowSize + " unacknowledged)");
+            }
+        }
+
+        synchronized (this) {
+            if (!connected) {
+                window.release();
+                throw new IOException("Not connected");
+            }
+
+            long sequence = nextSequence++;
+            byte[] encoded;
+            try {
+                encoded = encode(sequence, clientMsgId, message);
+            } catch (IOException e) {
+                nextSequence--;
+                window.release();
+                throw e;
+            }
+
+            unacked.put(sequence, new Pending(message, tag));
+            try {
+                output.write(encoded);
+                if (flush) {
+                    output.flush();
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+            return sequence;
+        }
+    }
+
+    public void close() {
+        Socket toClose;
+        synchronized (this) {
+            connected = false;
+            toClose = socket;
+            socket = null;
+        }
+        if (toClose != null) {
+            try {
+                toClose.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private byte[] encode(long sequence, String clientMsgId, String message) throws IOException {
+        if (binaryFraming) {
+            return clientMsgId != null
+                    ? FrameCodec.encode(FrameCodec.TYPE_DATA_ID, sequence, clientMsgId, message)
+                    : FrameCodec.encode(FrameCodec.TYPE_DATA_SEQ, sequence, message);
+        }
+        // One line per message on the wire
+        String payload = message.replace('\n', ' ').replace('\r', ' ');
+        String line = clientMsgId != null
+                ? ID_MESSAGE_PREFIX + sequence + " " + clientMsgId + " " + payload
+                : MESSAGE_PREFIX + sequence + " " + payload;
+        return (line + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void readAcks(Socket source) {
+        Exception cause = null;
+        try {
+            if (binaryFraming) {
+                FrameCodec.Reader reader = new FrameCodec.Reader(source.getInputStream());
+                FrameCodec.Frame frame;
+                while ((frame = reader.read()) != null) {
+                    lastInboundMillis = System.currentTimeMillis();
+                    if (frame.type == FrameCodec.TYPE_ACK) {
+                        onAck(frame.sequence);
+                    } else if (frame.type == FrameCodec.TYPE_NAK) {
+                        onNak(frame.sequence);
+                    } else if (frame.type == FrameCodec.TYPE_BUSY) {
+                        onBusy(frame.sequence);
+                    }
+                }
+            } else {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lastInboundMillis = System.currentTimeMillis();
+                    if (line.startsWith(ACK_PREFIX)) {
+                        onAck(parseSequence(line, ACK_PREFIX));
+                    } else if (line.startsWith(NAK_PREFIX)) {
+                        onNak(parseSequence(line, NAK_PREFIX));
+                    } else if (line.startsWith(BUSY_PREFIX)) {
+                        onBusy(parseSequence(line, BUSY_PREFIX));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            cause = e;
+        } finally {
+            close();
+
+            List<String> lost = new ArrayList<>(unacked.size());
+            for (Pending pending : unacked.values()) {
+                lost.add(pending.message);
+            }
+            window.release(unacked.size());
+            unacked.clear();
+            listener.onDisconnected(lost, cause);
+        }
+    }
+
+    private void onAck(long upTo) {
+        if (upTo < 0) return;
+
+        Map<Long, Pending> confirmed = unacked.headMap(upTo, true);
+        List<Long> tags = new ArrayList<>(confirmed.size());
+        for (Pending pending : confirmed.values()) {
+            tags.add(pending.tag);
+        }
+        confirmed.clear();
+        window.release(tags.size());
+        listener.onAcked(upTo, tags, unacked.size());
+    }
+
+    private void onNak(long sequence) {
+        Pending pending = sequence < 0 ? null : unacked.remove(sequence);
+        if (pending == null) return;
+
+        window.release();
+        listener.onNacked(sequence, pending.message, pending.tag);
+    }
+
+    private void onBusy(long sequence) {
+        Pending pending = sequence < 0 ? null : unacked.remove(sequence);
+        if (pending == null) return;
+
+        window.release();
+        listener.onBusy(sequence, pending.message, pending.tag);
+    }
+
+    private static long parseSequence(String line, String prefix) {
+        try {
+            return Long.parseLong(line.substring(prefix.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.mobilesender;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs ConnectionManager against a small in-process v2 text server.
+ */
+public class ConnectionManagerTest {
+
+    private ServerSocket server;
+    private Thread acceptThread;
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> receivedIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger pings = new AtomicInteger();
+    // The first connection reads this many messages, never acks them, then drops
+    private volatile int dropFirstConnectionAfter = -1;
+    // The first connection answers every message with BUSY2
+    private volatile boolean firstConnectionBusy = false;
+    // Connections up to this one answer every message with NAK2
+    private volatile int nakConnectionsUpTo = 0;
+    // Always answered with NAK2
+    private volatile String poisonMessage;
+
+    private File outboxFile;
+    private Outbox outbox;
+    private ConnectionManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        outboxFile = File.createTempFile("outbox", ".log");
+        outbox = new Outbox(outboxFile, 1024 * 1024);
+        startServer(0);
+    }
+
+    private void startServer(int port) throws IOException {
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress("127.0.0.1", port));
+        acceptThread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    int index = connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(client, index));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    @After
+    public void stopAll() throws IOException {
+        if (manager != null) {
+            manager.stop();
+        }
+        server.close();
+        outbox.close();
+        outboxFile.delete();
+    }
+
+    @Test
+    public void streamsQueuedMessagesOverOneConnection() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(50);
+        manager = newManager(delivered);
+        manager.start();
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(manager.offer("message " + i));
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, connections.get());
+        assertEquals(50, received.size());
+        assertEquals(0, outbox.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("message " + i, received.get(i));
+        }
+    }
+
+    @Test
+    public void reconnectsAndResendsUnacknowledgedMessages() throws Exception {
+        dropFirstConnectionAfter = 3;
+        CountDownLatch delivered = new CountDownLatch(10);
+        manager = newManager(delivered);
+        manager.start();
+
+        for (int i = 0; i < 10; i++) {
+            manager.offer("message " + i);
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(connections.get() >= 2);
+
+        // At-least-once: duplicates are allowed, gaps and reordering are not
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(received));
+        assertEquals(10, distinct.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("message " + i, distinct.get(i));
+        }
+    }
+
+    @Test
+    public void resendsCarryTheSameMessageId() throws Exception {
+        dropFirstConnectionAfter = 3;
+        CountDownLatch delivered = new CountDownLatch(5);
+        manager = newManager(delivered);
+        manager.setMessageIdPrefix("phone");
+        manager.start();
+
+        for (int i = 0; i < 5; i++) {
+            manager.offer("message " + i);
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(receivedIds.size() > 5);
+        for (int i = 0; i < receivedIds.size(); i++) {
+            String id = receivedIds.get(i);
+            assertTrue(id, id.startsWith("phone-"));
+            // Each copy of a message has the id of its first send
+            int first = receivedIds.indexOf(id);
+            assertEquals(received.get(first), received.get(i));
+        }
+        assertEquals(5, new LinkedHashSet<>(receivedIds).size());
+    }
+
+    @Test
+    public void backsOffAndResendsWhenServerIsBusy() throws Exception {
+        firstConnectionBusy = true;
+        CountDownLatch delivered = new CountDownLatch(5);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+        manager = newManager(delivered, rejected);
+        manager.start();
+
+        for (int i = 0; i < 5; i++) {
+            manager.offer("message " + i);
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(connections.get() >= 2);
+        assertTrue(rejected.isEmpty());
+        assertEquals(0, outbox.size());
+
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(received));
+        assertEquals(5, distinct.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("message " + i, distinct.get(i));
+        }
+    }
+
+    @Test
+    public void keepsRejectedMessagesWhileDesktopCannotSave() throws Exception {
+        nakConnectionsUpTo = ConnectionManager.MAX_REJECTIONS - 1;
+        CountDownLatch delivered = new CountDownLatch(5);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+        manager = newManager(delivered, rejected);
+        manager.start();
+
+        for (int i = 0; i < 5; i++) {
+            manager.offer("message " + i);
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(connections.get() >= ConnectionManager.MAX_REJECTIONS);
+        assertTrue(rejected.isEmpty());
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    public void dropsMessageAfterRepeatedRejections() throws Exception {
+        poisonMessage = "poison";
+        CountDownLatch delivered = new CountDownLatch(2);
+        List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+        manager = newManager(delivered, rejected);
+        manager.start();
+
+        manager.offer("before");
+        manager.offer("poison");
+        manager.offer("after");
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((outbox.size() > 0 || rejected.isEmpty()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, outbox.size());
+        assertEquals(List.of("poison"), rejected);
+        assertEquals(ConnectionManager.MAX_REJECTIONS, Collections.frequency(received, "poison"));
+    }
+
+    @Test
+    public void pingsIdleConnection() throws Exception {
+        manager = newManager(new CountDownLatch(0));
+        manager.setKeepAlive(100, 1000);
+        manager.start();
+
+        Thread.sleep(600);
+        assertTrue(pings.get() >= 2);
+        assertEquals(ConnectionManager.State.CONNECTED, manager.getState());
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void replaysOutboxOnceServerIsReachable() throws Exception {
+        int port = server.getLocalPort();
+        server.close();
+
+        CountDownLatch delivered = new CountDownLatch(5);
+        manager = newManager(delivered);
+        manager.start();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(manager.offer("offline " + i));
+        }
+
+        Thread.sleep(200);
+        assertEquals(5, manager.getQueuedCount());
+
+        startServer(port);
+        manager.retryNow();
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(0, outbox.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("offline " + i, received.get(i));
+        }
+    }
+
+    @Test
+    public void backoffDoublesUpToMaxAndResets() {
+        ConnectionManager.Backoff backoff = new ConnectionManager.Backoff(100, 1000);
+
+        long[] expected = {100, 200, 400, 800, 1000, 1000};
+        for (long base : expected) {
+            long delay = backoff.nextDelayMillis();
+            assertTrue("delay " + delay + " for base " + base, delay <= base && delay >= base - base / 5);
+        }
+
+        backoff.reset();
+        assertEquals(100, backoff.peekBaseMillis());
+    }
+
+    private ConnectionManager newManager(CountDownLatch delivered) {
+        return newManager(delivered, new ArrayList<>());
+    }
+
+    private ConnectionManager newManager(CountDownLatch delivered, List<String> rejected) {
+        ConnectionManager created = new ConnectionManager("127.0.0.1", server.getLocalPort(), false, outbox,
+                new ConnectionManager.Listener() {
+                    @Override
+                    public void onStateChanged(ConnectionManager.State state, String detail) {}
+
+                    @Override
+                    public void onDelivered(int count, int queued, int inFlight) {
+                        for (int i = 0; i < count; i++) {
+                            delivered.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onRejected(String message) {
+                        rejected.add(message);
+                    }
+                });
+        created.setBackoff(10, 50);
+        created.setConnectTimeout(1000);
+        return created;
+    }
+
+    private void serve(Socket client, int index) {
+        try (Socket socket = client) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream output = socket.getOutputStream();
+
+            int read = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals("PING2")) {
+                    pings.incrementAndGet();
+                    output.write("PONG2\n".getBytes(StandardCharsets.UTF_8));
+                    continue;
+                }
+
+                String[] parts;
+                if (line.startsWith("MSG2I ")) {
+                    parts = line.split(" ", 4);
+                    receivedIds.add(parts[2]);
+                    received.add(parts[3]);
+                } else {
+                    parts = line.split(" ", 3);
+                    received.add(parts[2]);
+                }
+                read++;
+
+                if (index <= nakConnectionsUpTo || parts[parts.length - 1].equals(poisonMessage)) {
+                    output.write(("NAK2 " + parts[1] + "\n").getBytes(StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (index == 1 && firstConnectionBusy) {
+                    output.write(("BUSY2 " + parts[1] + "\n").getBytes(StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (index == 1 && read == dropFirstConnectionAfter) {
+                    return;
+                }
+                if (index == 1 && dropFirstConnectionAfter > 0) {
+                    continue;
+                }
+                output.write(("ACK2 " + parts[1] + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.mobilesender;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Durability, ordering and disk cap of the append-only outbox file.
+ */
+public class OutboxTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("outbox", ".log");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void pendingMessagesSurviveReopen() throws IOException {
+        Outbox outbox = new Outbox(file, 1024 * 1024);
+        long first = outbox.append("one");
+        long second = outbox.append("two");
+        long third = outbox.append("three");
+        outbox.markDelivered(Arrays.asList(first, third));
+        outbox.close();
+
+        Outbox reopened = new Outbox(file, 1024 * 1024);
+        List<Outbox.Entry> pending = reopened.pendingAfter(0, 10);
+        assertEquals(1, pending.size());
+        assertEquals(second, pending.get(0).id);
+        assertEquals("two", pending.get(0).message);
+
+        // Ids keep increasing across restarts
+        assertTrue(reopened.append("four") > third);
+        reopened.close();
+    }
+
+    @Test
+    public void idsAreNotReusedAfterCompactingEverything() throws IOException {
+        Outbox outbox = new Outbox(file, 128 * 1024);
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        String message = new String(filler);
+
+        // Deliver until a compaction leaves no pending message in the file
+        long last = 0;
+        long previousBytes = 0;
+        while (outbox.getFileBytes() >= previousBytes) {
+            previousBytes = outbox.getFileBytes();
+            last = outbox.append(message);
+            outbox.markDelivered(Arrays.asList(last));
+        }
+        outbox.close();
+
+        Outbox reopened = new Outbox(file, 128 * 1024);
+        assertEquals(0, reopened.size());
+        assertTrue(reopened.append("next") > last);
+        reopened.close();
+    }
+
+    @Test
+    public void tornTailIsDiscarded() throws IOException {
+        Outbox outbox = new Outbox(file, 1024 * 1024);
+        outbox.append("kept");
+        outbox.append("torn");
+        outbox.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        Outbox reopened = new Outbox(file, 1024 * 1024);
+        List<Outbox.Entry> pending = reopened.pendingAfter(0, 10);
+        assertEquals(1, pending.size());
+        assertEquals("kept", pending.get(0).message);
+
+        reopened.append("after");
+        reopened.close();
+        assertEquals(2, new Outbox(file, 1024 * 1024).size());
+    }
+
+    @Test
+    public void batchesComeBackInOrderAfterCursor() throws IOException {
+        Outbox outbox = new Outbox(file, 1024 * 1024);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(outbox.append("m" + i));
+        }
+
+        List<Outbox.Entry> batch = outbox.pendingAfter(ids.get(3), 4);
+        assertEquals(4, batch.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("m" + (i + 4), batch.get(i).message);
+        }
+        outbox.close();
+    }
+
+    @Test
+    public void compactsDeliveredRecordsAndCapsDiskUse() throws IOException {
+        long cap = 128 * 1024;
+        Outbox outbox = new Outbox(file, cap);
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        String message = new String(filler);
+
+        // Far more than the cap in total, but delivered as we go
+        for (int i = 0; i < 1000; i++) {
+            long id = outbox.append(message);
+            assertTrue(id > 0);
+            outbox.markDelivered(Arrays.asList(id));
+            assertTrue(outbox.getFileBytes() <= cap);
+        }
+        assertEquals(0, outbox.size());
+
+        // Undelivered messages fill the cap, then appends are refused
+        int accepted = 0;
+        while (outbox.append(message) > 0) {
+            accepted++;
+        }
+        assertTrue(accepted > 100);
+        assertTrue(outbox.getFileBytes() <= cap);
+        assertEquals(accepted, outbox.size());
+        outbox.close();
+
+        assertEquals(accepted, new Outbox(file, cap).size());
+    }
+}